@@ -0,0 +1,180 @@
+package benchmark;
+
+import map.Coordinate;
+import map.MapGenerator;
+import map.PathMap;
+import pathFinder.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Synthetic maps and queries for the benchmarks.
+ * <p>
+ * A map is size x size cells made by MapGenerator: on a random map every cell is impassable with the given
+ * probability, and the passable cells of any topology are given a terrain cost drawn uniformly from 1 to the
+ * terrain spread. The queries are drawn among the cells reachable
+ * from the passable cell closest to the top left corner, so every one of them has a path.
+ * The same parameters and seed always give the same map and the same queries.
+ */
+class GridFixture {
+
+    static final long SEED = 20190401L;
+
+    private PathMap map;
+    private Random random;
+    // reachable cells in breadth first order from the start cell
+    private int[] reachable;
+
+    /**
+     * @param size            the number of rows and columns
+     * @param obstacleDensity the probability of a cell being impassable
+     * @param terrainSpread   the largest terrain cost, 1 for a map without terrain
+     */
+    GridFixture(int size, double obstacleDensity, int terrainSpread) {
+        this("random", size, obstacleDensity, terrainSpread);
+    } // end of GridFixture()
+
+    /**
+     * @param topology        the layout of the map, random, maze, rooms or bands
+     * @param size            the number of rows and columns
+     * @param obstacleDensity the probability of a cell being impassable on a random map
+     * @param terrainSpread   the largest terrain cost, 1 for a map without terrain
+     */
+    GridFixture(String topology, int size, double obstacleDensity, int terrainSpread) {
+        this.random = new Random(SEED);
+        this.map = new MapGenerator(MapGenerator.Topology.valueOf(topology.toUpperCase()))
+                .setObstacleDensity(obstacleDensity)
+                .setTerrainSpread(terrainSpread)
+                .setSeed(SEED)
+                .generate(size, size);
+        this.reachable = reachableFrom(firstPassable());
+    } // end of GridFixture()
+
+    PathMap getMap() {
+        return map;
+    }
+
+    /**
+     * @return the start cell, from which all the other query cells are reachable
+     */
+    Coordinate start() {
+        return map.coordinate(reachable[0]);
+    }
+
+    /**
+     * @return the reachable cell the furthest from the start in moves
+     */
+    Coordinate farthest() {
+        return map.coordinate(reachable[reachable.length - 1]);
+    }
+
+    /**
+     * @return num different reachable cells, drawn at random
+     */
+    List<Coordinate> randomCells(int num) {
+        if (num > reachable.length) {
+            throw new IllegalArgumentException("Only " + reachable.length + " cells are reachable.");
+        }
+        Set<Integer> cells = new LinkedHashSet<>();
+        while (cells.size() < num) {
+            cells.add(reachable[random.nextInt(reachable.length)]);
+        }
+        List<Coordinate> coordinates = new ArrayList<>();
+        for (int cell : cells) {
+            coordinates.add(map.coordinate(cell));
+        }
+        return coordinates;
+    }
+
+    /**
+     * Make the map's own query, the one findPath() answers.
+     */
+    void setQuery(List<Coordinate> origins, List<Coordinate> destinations, List<Coordinate> wayPoints) {
+        map.originCells = origins;
+        map.destCells = destinations;
+        map.waypointCells = wayPoints;
+    }
+
+    /**
+     * @param algorithm the name of the algorithm, as for the -a option of PathFinderTester
+     * @return the path finder of the map
+     */
+    static DijkstraPathFinder createFinder(String algorithm, PathMap map) {
+        switch (algorithm) {
+            case "dijkstra":
+                return new DijkstraPathFinder(map);
+            case "astar":
+                return new AStarPathFinder(map);
+            case "alt":
+                return new AltPathFinder(map);
+            case "bidirectional":
+                return new BidirectionalPathFinder(map);
+            case "jps":
+                return new JumpPointPathFinder(map);
+            case "hpa":
+                return new HierarchicalPathFinder(map);
+            case "ch":
+                return new ContractionHierarchyPathFinder(map);
+            case "dstar":
+                return new DStarLitePathFinder(map);
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+    }
+
+    /**
+     * Run findPath() without the distance it prints, which would end up in the benchmark output.
+     */
+    static void findPathQuietly(DijkstraPathFinder finder) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        try {
+            finder.findPath();
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private int firstPassable() {
+        // walk the anti-diagonals from the top left corner
+        for (int d = 0; d < map.sizeR + map.sizeC - 1; d++) {
+            for (int r = Math.max(0, d - map.sizeC + 1); r <= Math.min(d, map.sizeR - 1); r++) {
+                int cell = map.index(r, d - r);
+                if (!map.isImpassable(cell)) return cell;
+            }
+        }
+        throw new IllegalArgumentException("Every cell of the map is impassable.");
+    }
+
+    private int[] reachableFrom(int start) {
+        int cellNum = map.getCellNum();
+        int sizeC = map.sizeC;
+        int[] order = new int[cellNum];
+        BitSet seen = new BitSet(cellNum);
+        int head = 0;
+        int tail = 0;
+        order[tail++] = start;
+        seen.set(start);
+        while (head < tail) {
+            int cell = order[head++];
+            int r = cell / sizeC;
+            int c = cell % sizeC;
+            int[] neighbours = {r > 0 ? cell - sizeC : -1, r < map.sizeR - 1 ? cell + sizeC : -1,
+                    c > 0 ? cell - 1 : -1, c < sizeC - 1 ? cell + 1 : -1};
+            for (int next : neighbours) {
+                if (next >= 0 && !seen.get(next) && !map.isImpassable(next)) {
+                    seen.set(next);
+                    order[tail++] = next;
+                }
+            }
+        }
+        return Arrays.copyOf(order, tail);
+    }
+
+} // end of class GridFixture
@@ -0,0 +1,96 @@
+package benchmark;
+
+import map.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a map: PathMap.initMap() from collections of coordinates, parsing the text parameter files,
+ * and mapping a binary map file.
+ * <p>
+ * The files are written once per trial into a temporary directory, so the parsing benchmarks read them from
+ * the page cache rather than from the disk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapLoadBenchmark {
+
+    @Param({"128", "512", "2048"})
+    public int size;
+
+    @Param({"0.1", "0.3"})
+    public double obstacleDensity;
+
+    @Param({"1", "9"})
+    public int terrainSpread;
+
+    private Set<Coordinate> impassableCells;
+    private Map<Coordinate, Integer> terrainCells;
+    private List<Coordinate> origins;
+    private List<Coordinate> destinations;
+    private File directory;
+    private File paraFile;
+    private File terrainFile;
+    private File binaryFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GridFixture fixture = new GridFixture(size, obstacleDensity, terrainSpread);
+        PathMap map = fixture.getMap();
+        this.origins = Collections.singletonList(new Coordinate(fixture.start().getRow(), fixture.start().getColumn()));
+        this.destinations = Collections.singletonList(new Coordinate(fixture.farthest().getRow(), fixture.farthest().getColumn()));
+        fixture.setQuery(origins, destinations, new ArrayList<>());
+
+        this.impassableCells = new HashSet<>();
+        this.terrainCells = new HashMap<>();
+        for (int cell = 0; cell < map.getCellNum(); cell++) {
+            Coordinate coord = new Coordinate(cell / map.sizeC, cell % map.sizeC);
+            if (map.isImpassable(cell)) {
+                impassableCells.add(coord);
+            } else if (map.getTerrainCost(cell) != 1) {
+                terrainCells.put(coord, map.getTerrainCost(cell));
+            }
+        }
+
+        this.directory = Files.createTempDirectory("pathfinder-bench").toFile();
+        this.paraFile = new File(directory, "map.para");
+        this.terrainFile = new File(directory, "terrain.para");
+        this.binaryFile = new File(directory, "map.pmap");
+        TextMapWriter.write(map, paraFile, terrainFile, null);
+        BinaryMapFile.write(map, binaryFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        paraFile.delete();
+        terrainFile.delete();
+        binaryFile.delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public PathMap initMap() {
+        PathMap map = new PathMap();
+        map.initMap(size, size, origins, destinations, impassableCells, terrainCells, new ArrayList<>());
+        return map;
+    }
+
+    @Benchmark
+    public PathMap readTextMap() throws IOException {
+        return TextMapReader.read(paraFile, terrainFile, null, StorageType.HEAP);
+    }
+
+    @Benchmark
+    public PathMap readBinaryMap() throws IOException {
+        return BinaryMapFile.read(binaryFile);
+    }
+
+} // end of class MapLoadBenchmark
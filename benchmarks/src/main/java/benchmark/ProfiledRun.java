@@ -0,0 +1,30 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.results.format.ResultFormatType;
+
+/**
+ * Run the benchmarks with the GC profiler, which adds the bytes allocated per operation and the
+ * number and time of the collections to every result, so allocation regressions show up as numbers.
+ * <p>
+ * java -cp target/benchmarks.jar benchmark.ProfiledRun [benchmark regex] [result json file]
+ */
+public class ProfiledRun {
+
+    private ProfiledRun() {
+    } // end of ProfiledRun()
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "benchmark\\..*";
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(include).addProfiler(GCProfiler.class);
+        if (args.length > 1) {
+            options.resultFormat(ResultFormatType.JSON).result(args[1]);
+        }
+        new Runner(options.build()).run();
+    } // end of main()
+
+} // end of class ProfiledRun
@@ -0,0 +1,82 @@
+package benchmark;
+
+import map.Coordinate;
+import org.openjdk.jmh.annotations.*;
+import pathFinder.DijkstraPathFinder;
+import pathFinder.Route;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches without way points: one origin to one destination across the map, many origins to many
+ * destinations in one search, and counting the coordinates explored by findPath().
+ * <p>
+ * The map, the finder and the queries are built once per trial, so only the query itself is measured.
+ * The finder's search context is allocated by the warm-up, as it would be by the first query of a batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    @Param({"random"})
+    public String topology;
+
+    @Param({"128", "512"})
+    public int size;
+
+    @Param({"0.1", "0.3"})
+    public double obstacleDensity;
+
+    @Param({"1", "9"})
+    public int terrainSpread;
+
+    @Param({"dijkstra", "astar"})
+    public String algorithm;
+
+    // origins and destinations of the multi-origin multi-destination search
+    @Param({"8"})
+    public int terminalNum;
+
+    private DijkstraPathFinder finder;
+    private List<Coordinate> origin;
+    private List<Coordinate> destination;
+    private List<Coordinate> origins;
+    private List<Coordinate> destinations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GridFixture fixture = new GridFixture(topology, size, obstacleDensity, terrainSpread);
+        this.finder = GridFixture.createFinder(algorithm, fixture.getMap());
+        this.origin = Collections.singletonList(fixture.start());
+        this.destination = Collections.singletonList(fixture.farthest());
+        this.origins = fixture.randomCells(terminalNum);
+        this.destinations = fixture.randomCells(terminalNum);
+
+        // coordinatesExplored() counts what the last findPath() explored
+        fixture.setQuery(origin, destination, new ArrayList<>());
+        GridFixture.findPathQuietly(finder);
+    }
+
+    @Benchmark
+    public Route singleSearch() {
+        return finder.findRoute(origin, destination, Collections.emptyList());
+    }
+
+    @Benchmark
+    public Route multiOriginDestinationSearch() {
+        return finder.findRoute(origins, destinations, Collections.emptyList());
+    }
+
+    @Benchmark
+    public int coordinatesExplored() {
+        return finder.coordinatesExplored();
+    }
+
+} // end of class SearchBenchmark
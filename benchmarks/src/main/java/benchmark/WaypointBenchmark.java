@@ -0,0 +1,60 @@
+package benchmark;
+
+import map.Coordinate;
+import org.openjdk.jmh.annotations.*;
+import pathFinder.DijkstraPathFinder;
+import pathFinder.Route;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes through way points: one single-source search per origin and way point, then Held-Karp over the
+ * legs, so both the number of searches and the order solving grow with the number of way points.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WaypointBenchmark {
+
+    @Param({"random"})
+    public String topology;
+
+    @Param({"128", "512"})
+    public int size;
+
+    @Param({"0.1", "0.3"})
+    public double obstacleDensity;
+
+    @Param({"1", "9"})
+    public int terrainSpread;
+
+    @Param({"2", "6", "10"})
+    public int waypointNum;
+
+    @Param({"dijkstra"})
+    public String algorithm;
+
+    private DijkstraPathFinder finder;
+    private List<Coordinate> origins;
+    private List<Coordinate> destinations;
+    private List<Coordinate> wayPoints;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GridFixture fixture = new GridFixture(topology, size, obstacleDensity, terrainSpread);
+        this.finder = GridFixture.createFinder(algorithm, fixture.getMap());
+        this.origins = fixture.randomCells(1);
+        this.destinations = fixture.randomCells(1);
+        this.wayPoints = fixture.randomCells(waypointNum);
+    }
+
+    @Benchmark
+    public Route solveWaypoints() {
+        return finder.findRoute(origins, destinations, wayPoints);
+    }
+
+} // end of class WaypointBenchmark
@@ -0,0 +1,86 @@
+import java.io.*;
+import java.util.*;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+
+import map.*;
+
+
+/**
+ * Convert the text parameter, terrain and waypoint files of a map into one binary map file,
+ * which PathFinderTester memory-maps instead of parsing.
+ */
+class MapConverter
+{
+    /**
+     * Name of class, used in error messages.
+     */
+    protected static final String progName = "MapConverter";
+
+    /**
+     * Print help/usage message.
+     */
+    public static void usage(String progName) {
+        System.err.println(progName + ": [-t: -w:] <parameter fileName> <binary map fileName>");
+        System.err.println("options are: ");
+        System.err.println("-t <terrain parameter filename> ");
+        System.err.println("-w <waypoint parameter filename> ");
+        System.exit(1);
+    } // end of usage
+
+    /**
+     * Main function of the converter.
+     *
+     * @param args The text files to read and the binary file to write.
+     */
+    public static void main(String[] args) {
+        OptionParser parser = new OptionParser("t:w:");
+        OptionSet options = parser.parse(args);
+
+        String terrainFilename = null;
+        String waypointFilename = null;
+
+        // -t <terrain filename> specifies the (optional) terrain parameter filename
+        if (options.has("t")) {
+            if (options.hasArgument("t")) {
+                terrainFilename = (String) options.valueOf("t");
+            }
+            else {
+                System.err.println("Missing filename argument for -t option.");
+                usage(progName);
+            }
+        }
+        // -w <waypoint filename> specifies the (optional) waypoint parameter filename
+        if (options.has("w")) {
+            if (options.hasArgument("w")) {
+                waypointFilename = (String) options.valueOf("w");
+            }
+            else {
+                System.err.println("Missing filename argument for -w option.");
+                usage(progName);
+            }
+        }
+
+        // non option arguments
+        List<?> remainArgs = options.nonOptionArguments();
+        if (remainArgs.size() != 2) {
+            System.err.println("Incorrect number of arguments.");
+            usage(progName);
+        }
+        String paraFilename = (String) remainArgs.get(0);
+        String binaryFilename = (String) remainArgs.get(1);
+
+        // the cells are only read once, so they are kept off the heap whatever the size of the map
+        long startTime = System.nanoTime();
+        PathMap map = PathFinderTester.loadTextMap(paraFilename, terrainFilename, waypointFilename, StorageType.OFF_HEAP);
+        try {
+            BinaryMapFile.write(map, new File(binaryFilename));
+        } catch (IOException e) {
+            System.err.println("Cannot write binary map: " + e.getMessage());
+            System.exit(1);
+        }
+        long elapsedTime = System.nanoTime() - startTime;
+        System.out.println("Converted " + map.sizeR + " x " + map.sizeC + " map in " + (elapsedTime / 1000000.0) + " ms.");
+    } // end of main()
+
+} // end of class MapConverter
@@ -1,5 +1,7 @@
 import java.io.*;
+import java.nio.file.NoSuchFileException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 
@@ -29,16 +31,193 @@ class PathFinderTester
      * Print help/usage message.
      */
     public static void usage(String progName) {
-        System.err.println(progName + ": [-v -t: -w: -o:] <parameter fileName>");
+        System.err.println(progName + ": [-v -t: -w: -o: -a: -q: -p: -s: -b:] <parameter fileName>");
         System.err.println("options are: ");
         System.err.println("-v ");
         System.err.println("-t <terrain parameter filename> ");
         System.err.println("-w <waypoint parameter filename> ");
         System.err.println("-o <path output filename> ");
+        System.err.println("-a <algorithm> ");
+        System.err.println("-q <priority queue> ");
+        System.err.println("-p <number of threads> ");
+        System.err.println("-s <cell storage> ");
+        System.err.println("-b <queries filename> ");
         System.err.println("-v will activate map and path visualisation.");
+        System.err.println("-a selects the path finding algorithm: dijkstra (default), astar, alt, bidirectional, jps, hpa, ch or dstar.");
+        System.err.println("-q selects the priority queue of the search: auto (default), heap or bucket.");
+        System.err.println("-p searches from the origins and way points in parallel with the given number of threads.");
+        System.err.println("-s selects where the cells of the map are stored: heap (default) or offheap.");
+        System.err.println("-b answers every query of the file (origin, destination and way points per line) instead of the");
+        System.err.println("   query of the map, writing one answer per line to the -o file or the standard output.");
         System.exit(1);
     } // end of usage
 
+    /**
+     * Construct the path finder selected on the command line.
+     *
+     * @param algorithm Name of the algorithm.
+     * @param map The loaded map.
+     * @return The path finder for the map.
+     */
+    public static PathFinder createPathFinder(String algorithm, PathMap map) {
+        if (algorithm.equalsIgnoreCase("dijkstra")) {
+            return new DijkstraPathFinder(map);
+        }
+        else if (algorithm.equalsIgnoreCase("astar")) {
+            return new AStarPathFinder(map);
+        }
+        else if (algorithm.equalsIgnoreCase("bidirectional")) {
+            return new BidirectionalPathFinder(map);
+        }
+        else if (algorithm.equalsIgnoreCase("jps")) {
+            return new JumpPointPathFinder(map);
+        }
+        else if (algorithm.equalsIgnoreCase("hpa")) {
+            return new HierarchicalPathFinder(map);
+        }
+        else if (algorithm.equalsIgnoreCase("ch")) {
+            return new ContractionHierarchyPathFinder(map);
+        }
+        else if (algorithm.equalsIgnoreCase("alt")) {
+            return new AltPathFinder(map);
+        }
+        else if (algorithm.equalsIgnoreCase("dstar")) {
+            return new DStarLitePathFinder(map);
+        }
+        else {
+            System.err.println("Unknown algorithm: " + algorithm);
+            usage(progName);
+            return null;
+        }
+    } // end of createPathFinder
+
+    /**
+     * Convert the priority queue name given on the command line.
+     *
+     * @param queue Name of the priority queue.
+     * @return The priority queue type.
+     */
+    public static QueueType parseQueueType(String queue) {
+        if (queue.equalsIgnoreCase("auto")) {
+            return QueueType.AUTO;
+        }
+        else if (queue.equalsIgnoreCase("heap")) {
+            return QueueType.BINARY_HEAP;
+        }
+        else if (queue.equalsIgnoreCase("bucket")) {
+            return QueueType.BUCKET;
+        }
+        else {
+            System.err.println("Unknown priority queue: " + queue);
+            usage(progName);
+            return null;
+        }
+    } // end of parseQueueType
+
+    /**
+     * Convert the cell storage name given on the command line.
+     *
+     * @param storage Name of the cell storage.
+     * @return The storage type.
+     */
+    public static StorageType parseStorageType(String storage) {
+        if (storage.equalsIgnoreCase("heap")) {
+            return StorageType.HEAP;
+        }
+        else if (storage.equalsIgnoreCase("offheap")) {
+            return StorageType.OFF_HEAP;
+        }
+        else {
+            System.err.println("Unknown cell storage: " + storage);
+            usage(progName);
+            return null;
+        }
+    } // end of parseStorageType
+
+    /**
+     * Load a binary map, or parse the text parameter files into a map. Errors are reported and end the program.
+     *
+     * @param paraFilename Name of the binary map or of the parameter file.
+     * @param terrainFilename Name of the terrain file, or null.
+     * @param waypointFilename Name of the waypoint file, or null.
+     * @param storage Name of the cell storage of a text map.
+     * @return The map.
+     */
+    public static PathMap loadMap(String paraFilename, String terrainFilename, String waypointFilename, String storage) {
+        try {
+            if (BinaryMapFile.isBinaryMap(new File(paraFilename))) {
+                if (terrainFilename != null || waypointFilename != null) {
+                    System.err.println("Terrain and waypoints are part of a binary map, the -t and -w files are ignored.");
+                }
+                return BinaryMapFile.read(new File(paraFilename));
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot read binary map: " + e.getMessage());
+            usage(progName);
+        }
+        return loadTextMap(paraFilename, terrainFilename, waypointFilename, parseStorageType(storage));
+    } // end of loadMap
+
+    /**
+     * Parse the text parameter files into a map. Errors in the files are reported and end the program.
+     *
+     * @param paraFilename Name of the parameter file, with the size, origins, destinations and impassable cells.
+     * @param terrainFilename Name of the terrain file, or null.
+     * @param waypointFilename Name of the waypoint file, or null.
+     * @param storageType Where the map stores its cells.
+     * @return The map.
+     */
+    public static PathMap loadTextMap(String paraFilename, String terrainFilename, String waypointFilename,
+                                      StorageType storageType) {
+        try {
+            return TextMapReader.read(new File(paraFilename),
+                    terrainFilename == null ? null : new File(terrainFilename),
+                    waypointFilename == null ? null : new File(waypointFilename),
+                    storageType);
+        } catch (NoSuchFileException e) {
+            System.err.println("Parameter file doesn't exist: " + e.getFile());
+            usage(progName);
+        } catch (MapFormatException e) {
+            System.err.println(e.getMessage());
+            usage(progName);
+        } catch (IOException e) {
+            System.err.println("IO error: " + e);
+            usage(progName);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e);
+            usage(progName);
+        }
+        return null;
+    } // end of loadTextMap
+
+    /**
+     * Answer all the queries of the file on the map, and report how many were answered per second.
+     *
+     * @param pathFinder The path finder of the map.
+     * @param map The loaded map.
+     * @param queryFilename Name of the queries file.
+     * @param outputFilename Name of the file to write the answers to, or null for the standard output.
+     */
+    public static void runBatch(DijkstraPathFinder pathFinder, PathMap map, String queryFilename, String outputFilename) {
+        try (Writer writer = new BufferedWriter(outputFilename != null
+                ? new FileWriter(outputFilename) : new OutputStreamWriter(outStream), 1 << 16)) {
+            long startTime = System.nanoTime();
+            int queryNum = BatchQueries.run(pathFinder, map, new File(queryFilename), writer);
+            long elapsedTime = System.nanoTime() - startTime;
+            System.err.println(pathFinder.getClass().getSimpleName() + " answered " + queryNum + " queries in "
+                    + (elapsedTime / 1000000.0) + " ms (" + (long) (queryNum / (elapsedTime / 1e9)) + " queries per second).");
+        } catch (NoSuchFileException e) {
+            System.err.println("Queries file doesn't exist: " + e.getFile());
+            usage(progName);
+        } catch (MapFormatException e) {
+            System.err.println(e.getMessage());
+            usage(progName);
+        } catch (IOException e) {
+            System.err.println("IO error: " + e);
+            usage(progName);
+        }
+    } // end of runBatch
+
     /**
      * Main function of tester.
      *
@@ -50,13 +229,18 @@ class PathFinderTester
         // parse command line options
         //
 
-        OptionParser parser = new OptionParser("o:vt:w:");
+        OptionParser parser = new OptionParser("o:vt:w:a:q:p:s:b:");
         OptionSet options = parser.parse(args);
 
         String outputFilename = null;
         boolean isVisu = false;
         String terrainFilename = null;
         String waypointFilename = null;
+        String algorithm = "dijkstra";
+        String queue = "auto";
+        int threadNum = 0;
+        String storage = "heap";
+        String queryFilename = null;
 
         // -o <inputFilename> specifies the file that stores the shortest path results (optional)
         if (options.has("o")) {
@@ -92,6 +276,59 @@ class PathFinderTester
                 usage(progName);
             }
         }
+        // -a <algorithm> specifies the (optional) path finding algorithm
+        if (options.has("a")) {
+            if (options.hasArgument("a")) {
+                algorithm = (String) options.valueOf("a");
+            }
+            else {
+                System.err.println("Missing algorithm argument for -a option.");
+                usage(progName);
+            }
+        }
+        // -q <priority queue> specifies the (optional) priority queue of the search
+        if (options.has("q")) {
+            if (options.hasArgument("q")) {
+                queue = (String) options.valueOf("q");
+            }
+            else {
+                System.err.println("Missing priority queue argument for -q option.");
+                usage(progName);
+            }
+        }
+        // -p <number of threads> specifies the (optional) number of threads to search with
+        if (options.has("p")) {
+            try {
+                threadNum = Integer.parseInt((String) options.valueOf("p"));
+            }
+            catch (NumberFormatException e) {
+                threadNum = 0;
+            }
+            if (threadNum < 1) {
+                System.err.println("The -p option needs a positive number of threads.");
+                usage(progName);
+            }
+        }
+        // -s <cell storage> specifies the (optional) storage of the cells of the map
+        if (options.has("s")) {
+            if (options.hasArgument("s")) {
+                storage = (String) options.valueOf("s");
+            }
+            else {
+                System.err.println("Missing cell storage argument for -s option.");
+                usage(progName);
+            }
+        }
+        // -b <queries filename> specifies the (optional) file of queries to answer in one batch
+        if (options.has("b")) {
+            if (options.hasArgument("b")) {
+                queryFilename = (String) options.valueOf("b");
+            }
+            else {
+                System.err.println("Missing filename argument for -b option.");
+                usage(progName);
+            }
+        }
 
 
         // non option arguments
@@ -111,176 +348,11 @@ class PathFinderTester
         // parameter filename
         String paraFilename = remainArgs.get(0);
 
-        // number of rows and columns in map
-        int rowNum = 0;
-        int colNum = 0;
-
-        // origin and destination lists
-        List<Coordinate> originCells = new ArrayList<Coordinate>();
-        List<Coordinate> destCells = new ArrayList<Coordinate>();
-
-        // impassable, terrain and waypoint containters
-        Set<Coordinate> impassableCells = new HashSet<Coordinate>();
-        Map<Coordinate, Integer> terrainCells = new HashMap<Coordinate, Integer>();
-        List<Coordinate> waypointCells = new ArrayList<Coordinate>();
-
-        //
-        // Parse parameter files
-        //
-
-        // First parse main parameter file
-        try {
-            BufferedReader reader = new BufferedReader(new FileReader(paraFilename));
-            String line;
-
-            // read in row and column number
-            if ((line = reader.readLine()) != null) {
-                String[] tokens = line.trim().split("\\s+");
-
-                if (tokens.length != 2) {
-                    System.err.println(
-                            "There should be two numbers representing the number of rows and columns.");
-                } else {
-                    rowNum = Integer.parseInt(tokens[0]);
-                    colNum = Integer.parseInt(tokens[1]);
-
-                    // check Input
-                    if (rowNum <= 0 || colNum <= 0) {
-                        throw new IllegalArgumentException("Map dimensions cannot be 0 or less.");
-                    }
-                }
-            }
-
-            // read in origin coordinates
-            if ((line = reader.readLine()) != null) {
-                String[] tokens = line.trim().split("\\s+");
-
-                if (tokens.length < 2 || tokens.length % 2 != 0) {
-                    System.err.println(
-                            "Origin coordinates should be in pairs.");
-                } else {
-                    for (int i = 0; i < tokens.length; i += 2) {
-                        int r = Integer.parseInt(tokens[i]);
-                        int c = Integer.parseInt(tokens[i + 1]);
-                        if (r < 0 || r >= rowNum || c < 0 || c >= colNum) {
-                            throw new IllegalArgumentException(
-                                    "Origin coordinates cannot be less than 0 or greater than the number of rows or columns in map.");
-                        }
-                        originCells.add(new Coordinate(r, c));
-                    }
-                }
-            }
-
-            // read in destination coordinates
-            if ((line = reader.readLine()) != null) {
-                String[] tokens = line.trim().split("\\s+");
-
-                if (tokens.length < 2 || tokens.length % 2 != 0) {
-                    System.err.println(
-                            "Destination coordinates should be in pairs.");
-                } else {
-                    for (int i = 0; i < tokens.length; i += 2) {
-                        int r = Integer.parseInt(tokens[i]);
-                        int c = Integer.parseInt(tokens[i + 1]);
-                        if (r < 0 || r >= rowNum || c < 0 || c >= colNum) {
-                            throw new IllegalArgumentException(
-                                    "Destination coordinates cannot be less than 0 or greater than the number of rows or columns in map.");
-                        }
-                        destCells.add(new Coordinate(r, c));
-                    }
-                }
-            }
-
-            // read in impassible coordinates
-            while ((line = reader.readLine()) != null) {
-                String[] tokens = line.trim().split("\\s+");
-
-                if (tokens.length != 2) {
-                    System.err.println(
-                            "Impassable coordinates should be in pairs");
-                } else {
-                    impassableCells.add(new Coordinate(Integer.parseInt(tokens[0]), Integer.parseInt(tokens[1])));
-                }
-            }
-        } catch (FileNotFoundException e) {
-            System.err.println("Parameter file doesn't exist.");
-            usage(progName);
-        } catch (IOException e) {
-            System.err.println("IO error.");
-            usage(progName);
-        } catch (IllegalArgumentException e) {
-            System.err.println(e);
-            usage(progName);
-        }
-
-
-        // check if need to parse terrain parameter file
-        if (terrainFilename != null) {
-            // parse terrain file
-            try {
-                BufferedReader reader = new BufferedReader(new FileReader(terrainFilename));
-                String line;
-
-                while ((line = reader.readLine()) != null) {
-                    String[] tokens = line.trim().split("\\s+");
-
-                    if (tokens.length != 3) {
-                        System.err.println(
-                                "Terrain should be two coordinates and cost");
-                    } else {
-                        int cost = Integer.parseInt(tokens[2]);
-                        if (cost < 1) {
-                            System.err.println(
-                                    "Terrain cost must be 1 or more");
-                        } else {
-                            Coordinate coord = new Coordinate(Integer.parseInt(tokens[0]), Integer.parseInt(tokens[1]));
-                            terrainCells.put(coord, new Integer(cost));
-                        }
-                    }
-                }
-            } catch (FileNotFoundException e) {
-                System.err.println("Parameter file doesn't exist.");
-                usage(progName);
-            } catch (IOException e) {
-                System.err.println("IO error.");
-                usage(progName);
-            }
-        }
-
-        // check if need to parse waypoint parameter file
-        if (waypointFilename != null) {
-            try {
-                BufferedReader reader = new BufferedReader(new FileReader(waypointFilename));
-                String line;
-
-                while ((line = reader.readLine()) != null) {
-                    String[] tokens = line.trim().split("\\s+");
-
-                    if (tokens.length != 2) {
-                        System.err.println(
-                                "Waypoints should be two coordinates");
-                    } else {
-                        waypointCells.add(new Coordinate(Integer.parseInt(tokens[0]), Integer.parseInt(tokens[1])));
-                    }
-                }
-                reader.close();
-            } catch (FileNotFoundException e) {
-                System.err.println("Parameter file doesn't exist.");
-                usage(progName);
-            } catch (IOException e) {
-                System.err.println("IO error: " + e);
-                usage(progName);
-            }
-        }
-
-
         //
         // Construct map
         //
 
-        PathMap map = new PathMap();
-        // load map
-        map.initMap(rowNum, colNum, originCells, destCells, impassableCells, terrainCells, waypointCells);
+        PathMap map = loadMap(paraFilename, terrainFilename, waypointFilename, storage);
         map.isVisu = isVisu;
 
         // display it
@@ -291,12 +363,26 @@ class PathFinderTester
         //
 
         // setup path finding algorithm
-        PathFinder pathFinder = new DijkstraPathFinder(map);
+        PathFinder pathFinder = createPathFinder(algorithm, map);
+        if (pathFinder instanceof DijkstraPathFinder) {
+            ((DijkstraPathFinder) pathFinder).setQueueType(parseQueueType(queue));
+            if (threadNum > 0) {
+                ((DijkstraPathFinder) pathFinder).setForkJoinPool(new ForkJoinPool(threadNum));
+            }
+        }
+
+        if (queryFilename != null) {
+            runBatch((DijkstraPathFinder) pathFinder, map, queryFilename, outputFilename);
+            return;
+        }
 
         outStream.println(pathFinder.getClass().getSimpleName() + " is finding a path.");
 
-        // find path
+        // find path, and time it so the algorithms can be compared
+        long startTime = System.nanoTime();
         List<Coordinate> path = pathFinder.findPath();
+        long elapsedTime = System.nanoTime() - startTime;
+        outStream.println("Time taken = " + (elapsedTime / 1000000.0) + " ms");
 
         // check if a path has been found
         if (path.size() == 0) {
@@ -0,0 +1,126 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+
+import map.*;
+import pathFinder.*;
+
+
+/**
+ * Load a map once and answer route queries on it over a local TCP socket, until the process is stopped.
+ * On Ctrl-C the server stops taking queries, answers the ones it has read, and reports its throughput.
+ */
+class RoutingServer
+{
+    /**
+     * Name of class, used in error messages.
+     */
+    protected static final String progName = "RoutingServer";
+
+    /**
+     * How long the queries already read may take to be answered when the server is stopped.
+     */
+    private static final long DRAIN_SECONDS = 30;
+
+    /**
+     * Print help/usage message.
+     */
+    public static void usage(String progName) {
+        System.err.println(progName + ": [-t: -w: -a: -q: -s: -l: -c:] <parameter fileName>");
+        System.err.println("options are: ");
+        System.err.println("-t <terrain parameter filename> ");
+        System.err.println("-w <waypoint parameter filename> ");
+        System.err.println("-a <algorithm> ");
+        System.err.println("-q <priority queue> ");
+        System.err.println("-s <cell storage> ");
+        System.err.println("-l <port> ");
+        System.err.println("-c <maximum concurrent queries> ");
+        System.err.println("-a, -q and -s are the same as for PathFinderTester.");
+        System.err.println("-l listens on the given port of localhost, " + RouteServer.DEFAULT_PORT + " by default, 0 for any free port.");
+        System.err.println("-c searches at most the given number of queries at once, " + RouteServer.DEFAULT_MAX_CONCURRENT + " by default.");
+        System.exit(1);
+    } // end of usage
+
+    /**
+     * @return the positive value of the option, the default if it is not given
+     */
+    private static int parsePositive(OptionSet options, String option, int defaultValue, boolean isZeroAllowed) {
+        if (!options.has(option)) {
+            return defaultValue;
+        }
+        int value = -1;
+        try {
+            value = Integer.parseInt((String) options.valueOf(option));
+        }
+        catch (NumberFormatException e) {
+            value = -1;
+        }
+        if (value < (isZeroAllowed ? 0 : 1)) {
+            System.err.println("The -" + option + " option needs a positive number.");
+            usage(progName);
+        }
+        return value;
+    } // end of parsePositive
+
+    /**
+     * Main function of the server.
+     *
+     * @param args The options and the map to serve.
+     */
+    public static void main(String[] args) {
+        OptionParser parser = new OptionParser("t:w:a:q:s:l:c:");
+        OptionSet options = parser.parse(args);
+
+        String terrainFilename = options.has("t") ? (String) options.valueOf("t") : null;
+        String waypointFilename = options.has("w") ? (String) options.valueOf("w") : null;
+        String algorithm = options.has("a") ? (String) options.valueOf("a") : "dijkstra";
+        String queue = options.has("q") ? (String) options.valueOf("q") : "auto";
+        String storage = options.has("s") ? (String) options.valueOf("s") : "heap";
+        int port = parsePositive(options, "l", RouteServer.DEFAULT_PORT, true);
+        int maxConcurrent = parsePositive(options, "c", RouteServer.DEFAULT_MAX_CONCURRENT, false);
+
+        List<?> remainArgs = options.nonOptionArguments();
+        if (remainArgs.size() != 1) {
+            System.err.println("Incorrect number of arguments.");
+            usage(progName);
+        }
+        String paraFilename = (String) remainArgs.get(0);
+
+        long startTime = System.nanoTime();
+        PathMap map = PathFinderTester.loadMap(paraFilename, terrainFilename, waypointFilename, storage);
+        DijkstraPathFinder pathFinder = (DijkstraPathFinder) PathFinderTester.createPathFinder(algorithm, map);
+        pathFinder.setQueueType(PathFinderTester.parseQueueType(queue));
+
+        RouteServer server;
+        try {
+            server = new RouteServer(pathFinder, map,
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), port), maxConcurrent);
+        } catch (IOException e) {
+            System.err.println("Cannot listen on port " + port + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        final long servingTime = System.nanoTime();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                if (!server.drain(DRAIN_SECONDS, TimeUnit.SECONDS)) {
+                    System.err.println("Some queries were not answered in " + DRAIN_SECONDS + " s.");
+                }
+            } catch (InterruptedException e) {
+                server.close();
+            }
+            double seconds = (System.nanoTime() - servingTime) / 1e9;
+            System.err.println(progName + " answered " + server.getAnswered() + " queries in " + seconds + " s ("
+                    + (long) (server.getAnswered() / seconds) + " queries per second).");
+        }));
+        server.start();
+        System.err.println(pathFinder.getClass().getSimpleName() + " serving the " + map.sizeR + " x " + map.sizeC
+                + " map on localhost:" + server.getPort() + ", loaded in "
+                + ((servingTime - startTime) / 1000000.0) + " ms.");
+    } // end of main()
+
+} // end of class RoutingServer
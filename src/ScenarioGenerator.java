@@ -0,0 +1,202 @@
+import java.io.*;
+import java.util.*;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+
+import map.*;
+import pathFinder.*;
+
+
+/**
+ * Generate a synthetic map and a list of scenarios on it, query pairs with their optimal costs,
+ * for testing how the path finders scale.
+ * <p>
+ * Given the name base, it writes base.para, base_terrain.para and base_waypoints.para (or base.pmap with -f),
+ * base.queries, one "origin destination" query per line for PathFinderTester -b and RoutingServer,
+ * and base.scen, the same queries each followed by the cost of its shortest path.
+ */
+class ScenarioGenerator
+{
+    /**
+     * Name of class, used in error messages.
+     */
+    protected static final String progName = "ScenarioGenerator";
+
+    /**
+     * Print help/usage message.
+     */
+    public static void usage(String progName) {
+        System.err.println(progName + ": [-f -t: -r: -c: -d: -x: -k: -g: -q: -p: -w: -s:] <output name base>");
+        System.err.println("options are: ");
+        System.err.println("-f ");
+        System.err.println("-t <topology> ");
+        System.err.println("-r <number of rows> ");
+        System.err.println("-c <number of columns> ");
+        System.err.println("-d <obstacle density> ");
+        System.err.println("-x <terrain spread> ");
+        System.err.println("-k <block size> ");
+        System.err.println("-g <seed> ");
+        System.err.println("-q <number of scenarios> ");
+        System.err.println("-p <scenarios per origin> ");
+        System.err.println("-w <number of waypoints> ");
+        System.err.println("-s <cell storage> ");
+        System.err.println("-f writes a binary map instead of the text parameter files.");
+        System.err.println("-t selects the layout: random (default), maze, rooms or bands.");
+        System.err.println("-r and -c give the size of the map, 1000 x 1000 by default.");
+        System.err.println("-d is the probability of a cell being impassable on a random map, 0.2 by default.");
+        System.err.println("-x is the largest terrain cost, 1 (no terrain) by default, try 9 for bands.");
+        System.err.println("-k is the block size of rooms and the width of bands, 16 by default.");
+        System.err.println("-g is the seed, 1 by default, the same options and seed give the same files.");
+        System.err.println("-q is the number of scenarios, 100 by default, and -p how many share an origin, 10 by default.");
+        System.err.println("   Each origin costs one full Dijkstra search.");
+        System.err.println("-w is the number of way points of the map's own query, 0 by default.");
+        System.err.println("-s selects where the cells of the map are stored: heap (default) or offheap.");
+        System.exit(1);
+    } // end of usage
+
+    /**
+     * @return the value of the option, the default if it is not given
+     */
+    private static long parseNumber(OptionSet options, String option, long defaultValue, long minimum, long maximum) {
+        if (!options.has(option)) {
+            return defaultValue;
+        }
+        long value = minimum - 1;
+        try {
+            value = Long.parseLong((String) options.valueOf(option));
+        }
+        catch (NumberFormatException e) {
+            value = minimum - 1;
+        }
+        if (value < minimum || value > maximum) {
+            System.err.println("The -" + option + " option needs a number from " + minimum + " to " + maximum + ".");
+            usage(progName);
+        }
+        return value;
+    } // end of parseNumber
+
+    /**
+     * Convert the topology name given on the command line.
+     *
+     * @param topology Name of the topology.
+     * @return The topology.
+     */
+    public static MapGenerator.Topology parseTopology(String topology) {
+        for (MapGenerator.Topology t : MapGenerator.Topology.values()) {
+            if (t.name().equalsIgnoreCase(topology)) {
+                return t;
+            }
+        }
+        System.err.println("Unknown topology: " + topology);
+        usage(progName);
+        return null;
+    } // end of parseTopology
+
+    /**
+     * Main function of the generator.
+     *
+     * @param args The options and the name base of the files to write.
+     */
+    public static void main(String[] args) {
+        OptionParser parser = new OptionParser("ft:r:c:d:x:k:g:q:p:w:s:");
+        OptionSet options = parser.parse(args);
+
+        boolean isBinary = options.has("f");
+        String topology = options.has("t") ? (String) options.valueOf("t") : "random";
+        int rowNum = (int) parseNumber(options, "r", 1000, 1, Integer.MAX_VALUE);
+        int colNum = (int) parseNumber(options, "c", 1000, 1, Integer.MAX_VALUE);
+        double obstacleDensity = 0.2;
+        if (options.has("d")) {
+            try {
+                obstacleDensity = Double.parseDouble((String) options.valueOf("d"));
+            }
+            catch (NumberFormatException e) {
+                obstacleDensity = -1;
+            }
+            if (obstacleDensity < 0 || obstacleDensity >= 1) {
+                System.err.println("The -d option needs a probability from 0 to less than 1.");
+                usage(progName);
+            }
+        }
+        int terrainSpread = (int) parseNumber(options, "x", 1, 1, Integer.MAX_VALUE);
+        int blockSize = (int) parseNumber(options, "k", 16, 4, Integer.MAX_VALUE);
+        long seed = parseNumber(options, "g", 1, Long.MIN_VALUE + 1, Long.MAX_VALUE);
+        int scenarioNum = (int) parseNumber(options, "q", 100, 0, Integer.MAX_VALUE);
+        int perOrigin = (int) parseNumber(options, "p", 10, 1, Integer.MAX_VALUE);
+        int waypointNum = (int) parseNumber(options, "w", 0, 0, Integer.MAX_VALUE);
+        String storage = options.has("s") ? (String) options.valueOf("s") : "heap";
+
+        List<?> remainArgs = options.nonOptionArguments();
+        if (remainArgs.size() != 1) {
+            System.err.println("Incorrect number of arguments.");
+            usage(progName);
+        }
+        String base = (String) remainArgs.get(0);
+        if ((long) rowNum * colNum > Integer.MAX_VALUE) {
+            System.err.println("Map cannot have more than " + Integer.MAX_VALUE + " cells.");
+            usage(progName);
+        }
+
+        long startTime = System.nanoTime();
+        PathMap map = new MapGenerator(parseTopology(topology))
+                .setObstacleDensity(obstacleDensity)
+                .setTerrainSpread(terrainSpread)
+                .setBlockSize(blockSize)
+                .setSeed(seed)
+                .setStorageType(PathFinderTester.parseStorageType(storage))
+                .generate(rowNum, colNum);
+        long generatedTime = System.nanoTime();
+
+        // the map's own query goes from an origin through the way points to a destination, all reachable
+        List<Scenario> query = Scenario.sample(map, 1, waypointNum + 1, seed + 1);
+        if (query.isEmpty()) {
+            System.err.println("The map has no two connected cells.");
+            System.exit(1);
+        }
+        List<Coordinate> wayPoints = new ArrayList<>();
+        for (int i = 0; i < waypointNum; i++) {
+            wayPoints.add(query.get(i).getDestination());
+        }
+        map.originCells = Collections.singletonList(query.get(0).getOrigin());
+        map.destCells = Collections.singletonList(query.get(waypointNum).getDestination());
+        map.waypointCells = wayPoints;
+
+        List<Scenario> scenarios = Scenario.sample(map, (scenarioNum + perOrigin - 1) / perOrigin, perOrigin, seed + 2);
+        scenarios = scenarios.subList(0, Math.min(scenarioNum, scenarios.size()));
+        long scenarioTime = System.nanoTime();
+
+        try {
+            if (isBinary) {
+                BinaryMapFile.write(map, new File(base + ".pmap"));
+            } else {
+                TextMapWriter.write(map, new File(base + ".para"), new File(base + "_terrain.para"),
+                        new File(base + "_waypoints.para"));
+            }
+            writeScenarios(scenarios, new File(base + ".queries"), new File(base + ".scen"));
+        } catch (IOException e) {
+            System.err.println("Cannot write the files: " + e.getMessage());
+            System.exit(1);
+        }
+        long elapsedTime = System.nanoTime() - startTime;
+
+        System.out.println("Generated " + rowNum + " x " + colNum + " " + topology + " map in "
+                + ((generatedTime - startTime) / 1000000.0) + " ms, " + scenarios.size() + " scenarios in "
+                + ((scenarioTime - generatedTime) / 1000000.0) + " ms, " + (elapsedTime / 1000000.0) + " ms in all.");
+    } // end of main()
+
+    /**
+     * Write the queries alone, and the queries with their costs.
+     */
+    private static void writeScenarios(List<Scenario> scenarios, File queryFile, File scenarioFile) throws IOException {
+        try (PrintWriter queries = new PrintWriter(new BufferedWriter(new FileWriter(queryFile)));
+             PrintWriter costs = new PrintWriter(new BufferedWriter(new FileWriter(scenarioFile)))) {
+            for (Scenario scenario : scenarios) {
+                String line = scenario.getOrigin().getRow() + " " + scenario.getOrigin().getColumn() + " "
+                        + scenario.getDestination().getRow() + " " + scenario.getDestination().getColumn();
+                queries.println(line);
+                costs.println(line + " " + scenario.getCost());
+            }
+        }
+    } // end of writeScenarios
+
+} // end of class ScenarioGenerator
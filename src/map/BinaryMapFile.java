@@ -0,0 +1,222 @@
+package map;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary map files, which are memory-mapped when they are read so a map of any size is ready at once.
+ * <p>
+ * All numbers are little-endian ints. The file starts with a header:
+ * the magic bytes "PMAP", the format version, the number of rows and the number of columns,
+ * then the origins, the destinations and the way points, each as a count followed by (row, column) pairs.
+ * The header is padded with zeros to a multiple of 8 bytes, and is followed by the terrain cost plane,
+ * one int per cell in the order r * sizeC + c, and the impassable bitmap, bit (cell & 7) of byte (cell >>> 3).
+ * <p>
+ * A map read from a file keeps its cells in the mapped planes. When the file is writable they are mapped
+ * copy-on-write, so cells can be changed without touching the file; otherwise they cannot be changed.
+ */
+public class BinaryMapFile {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte[] MAGIC = {'P', 'M', 'A', 'P'};
+    // bytes of magic, version, rows and columns
+    private static final int FIXED_HEADER_SIZE = 16;
+    // cells written per block when the planes are written
+    private static final int BLOCK_CELLS = 1 << 16;
+
+    private BinaryMapFile() {
+    } // end of BinaryMapFile()
+
+    /**
+     * @param file The file to check.
+     * @return True if the file starts with the magic bytes of a binary map.
+     */
+    public static boolean isBinaryMap(File file) throws IOException {
+        if (!file.isFile() || file.length() < FIXED_HEADER_SIZE) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = readFully(channel, 0, MAGIC.length);
+            for (byte b : MAGIC) {
+                if (magic.get() != b) return false;
+            }
+            return true;
+        }
+    } // end of isBinaryMap()
+
+    /**
+     * Write the map, whatever its storage, in the current format version.
+     *
+     * @param map  The map to write.
+     * @param file The file to write to, replaced if it exists.
+     */
+    public static void write(PathMap map, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int headerSize = headerSize(map.originCells.size(), map.destCells.size(), map.waypointCells.size());
+            ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC).putInt(FORMAT_VERSION).putInt(map.sizeR).putInt(map.sizeC);
+            putCoordinates(header, map.originCells);
+            putCoordinates(header, map.destCells);
+            putCoordinates(header, map.waypointCells);
+            header.position(headerSize).flip();
+            writeFully(channel, header);
+
+            int cellNum = map.getCellNum();
+            // the planes go through one small block, nothing map-sized is allocated
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_CELLS * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int cell = 0; cell < cellNum; cell++) {
+                if (!block.hasRemaining()) {
+                    block.flip();
+                    writeFully(channel, block);
+                    block.clear();
+                }
+                block.putInt(map.getTerrainCost(cell));
+            }
+            block.flip();
+            writeFully(channel, block);
+
+            block.clear();
+            for (int first = 0; first < cellNum; first += 8) {
+                if (!block.hasRemaining()) {
+                    block.flip();
+                    writeFully(channel, block);
+                    block.clear();
+                }
+                int bits = 0;
+                for (int cell = first; cell < Math.min(first + 8, cellNum); cell++) {
+                    if (map.isImpassable(cell)) bits |= 1 << (cell & 7);
+                }
+                block.put((byte) bits);
+            }
+            block.flip();
+            writeFully(channel, block);
+        }
+    } // end of write()
+
+    /**
+     * Memory-map a binary map file. Only the header is read, the planes are paged in as the searches touch them.
+     *
+     * @param file The file to read.
+     * @return The map, whose cells are the mapped planes of the file.
+     * @throws IOException If the file cannot be read, is not a binary map, has another format version
+     *                     or does not hold the whole map.
+     */
+    public static PathMap read(File file) throws IOException {
+        Path path = file.toPath();
+        boolean isWritable = Files.isWritable(path);
+        try (FileChannel channel = isWritable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < FIXED_HEADER_SIZE) {
+                throw new IOException("Not a binary map: " + file);
+            }
+            ByteBuffer fixed = readFully(channel, 0, FIXED_HEADER_SIZE);
+            for (byte b : MAGIC) {
+                if (fixed.get() != b) throw new IOException("Not a binary map: " + file);
+            }
+            int version = fixed.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported binary map version " + version + ", expected " + FORMAT_VERSION + ".");
+            }
+            int rowNum = fixed.getInt();
+            int colNum = fixed.getInt();
+            if (rowNum <= 0 || colNum <= 0 || (long) rowNum * colNum > Integer.MAX_VALUE) {
+                throw new IOException("Invalid map dimensions " + rowNum + " x " + colNum + ".");
+            }
+
+            long position = FIXED_HEADER_SIZE;
+            List<Coordinate> origins = new ArrayList<>();
+            position = readCoordinates(channel, position, origins);
+            List<Coordinate> destinations = new ArrayList<>();
+            position = readCoordinates(channel, position, destinations);
+            List<Coordinate> waypoints = new ArrayList<>();
+            position = readCoordinates(channel, position, waypoints);
+            long planeStart = align(position);
+
+            int cellNum = rowNum * colNum;
+            long impassableStart = planeStart + (long) cellNum * Integer.BYTES;
+            int impassableSize = (cellNum + 7) >>> 3;
+            if (channel.size() < impassableStart + impassableSize) {
+                throw new IOException("Binary map is truncated: " + file);
+            }
+
+            FileChannel.MapMode mode = isWritable ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_ONLY;
+            ByteBuffer[] chunks = new ByteBuffer[DirectCellStorage.chunkNum(cellNum)];
+            for (int k = 0; k < chunks.length; k++) {
+                long firstCell = (long) k << DirectCellStorage.CHUNK_SHIFT;
+                long chunkCells = Math.min(cellNum - firstCell, 1L << DirectCellStorage.CHUNK_SHIFT);
+                chunks[k] = channel.map(mode, planeStart + firstCell * Integer.BYTES, chunkCells * Integer.BYTES);
+            }
+            ByteBuffer impassable = channel.map(mode, impassableStart, impassableSize);
+
+            // the mappings stay valid once the channel is closed
+            PathMap map = new PathMap();
+            map.initMap(rowNum, colNum, origins, destinations, waypoints, new DirectCellStorage(chunks, impassable));
+            return map;
+        }
+    } // end of read()
+
+    //
+    // Auxiliary functions
+    //
+
+    private static int headerSize(int originNum, int destinationNum, int waypointNum) {
+        long size = FIXED_HEADER_SIZE + 3 * Integer.BYTES + 2L * Integer.BYTES * (originNum + destinationNum + waypointNum);
+        return (int) align(size);
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static void putCoordinates(ByteBuffer buffer, List<Coordinate> coordinates) {
+        buffer.putInt(coordinates.size());
+        for (Coordinate coord : coordinates) {
+            buffer.putInt(coord.getRow()).putInt(coord.getColumn());
+        }
+    }
+
+    /**
+     * @return the position right after the coordinates
+     */
+    private static long readCoordinates(FileChannel channel, long position, List<Coordinate> coordinates)
+            throws IOException {
+        int num = readFully(channel, position, Integer.BYTES).getInt();
+        if (num < 0 || position + Integer.BYTES + 2L * Integer.BYTES * num > channel.size()) {
+            throw new IOException("Invalid number of coordinates " + num + " in binary map header.");
+        }
+        ByteBuffer pairs = readFully(channel, position + Integer.BYTES, 2 * Integer.BYTES * num);
+        for (int i = 0; i < num; i++) {
+            coordinates.add(new Coordinate(pairs.getInt(), pairs.getInt()));
+        }
+        return position + Integer.BYTES + 2L * Integer.BYTES * num;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of binary map.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+} // end of class BinaryMapFile
@@ -0,0 +1,16 @@
+package map;
+
+/**
+ * Storage of the terrain costs and impassable flags of the cells of a map, indexed by r * sizeC + c.
+ */
+interface CellStorage {
+
+    boolean isImpassable(int cell);
+
+    void setImpassable(int cell, boolean isImpassable);
+
+    int getTerrainCost(int cell);
+
+    void setTerrainCost(int cell, int cost);
+
+} // end of interface CellStorage
@@ -7,6 +7,9 @@ import java.util.*;
  * RMIT Algorithms & Analysis, 2019 semester 1
  * <p>
  * Class representing a coordinate.
+ * <p>
+ * A coordinate handed out by a map is a view of its cell: the impassable flag and the terrain cost are
+ * read from and written to the map. A coordinate on its own keeps them itself.
  */
 public class Coordinate {
     /**
@@ -29,6 +32,11 @@ public class Coordinate {
      */
     protected int terrainCost;
 
+    /**
+     * Map the coordinate is a view of, null if it is not part of a map.
+     */
+    protected PathMap map;
+
 
     /**
      * Construct coordinate (r, c).
@@ -56,6 +64,15 @@ public class Coordinate {
     } // end of Coordinate()
 
 
+    /**
+     * Construct the view of cell (r, c) of the map.
+     */
+    Coordinate(PathMap map, int r, int c) {
+        this(r, c, false);
+        this.map = map;
+    } // end of Coordinate()
+
+
     /**
      * Default constructor.
      */
@@ -78,19 +95,27 @@ public class Coordinate {
 
 
     public void setImpassable(boolean impassable) {
-        isImpassable = impassable;
+        if (map != null) {
+            map.setImpassable(map.index(r, c), impassable);
+        } else {
+            isImpassable = impassable;
+        }
     }
 
     public boolean getImpassable() {
-        return isImpassable;
+        return map != null ? map.isImpassable(map.index(r, c)) : isImpassable;
     }
 
     public void setTerrainCost(int cost) {
-        terrainCost = cost;
+        if (map != null) {
+            map.setTerrainCost(map.index(r, c), cost);
+        } else {
+            terrainCost = cost;
+        }
     }
 
     public int getTerrainCost() {
-        return terrainCost;
+        return map != null ? map.getTerrainCost(map.index(r, c)) : terrainCost;
     }
 
 
@@ -117,6 +142,6 @@ public class Coordinate {
 
     @Override
     public String toString() {
-        return "(" + r + "," + c + "), " + isImpassable + ", " + terrainCost;
+        return "(" + r + "," + c + "), " + getImpassable() + ", " + getTerrainCost();
     } // end of toString()
 } // end of class Coordinate
@@ -0,0 +1,83 @@
+package map;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Cells kept outside the Java heap, in direct (or memory-mapped) byte buffers.
+ * <p>
+ * Terrain costs are little-endian ints, cut into chunks of 2^28 cells, as one buffer cannot hold more than
+ * 2 GiB. Impassable flags are one bit per cell, bit (cell & 7) of byte (cell >>> 3), which is the same
+ * layout as little-endian long words. The heap only holds the buffer objects, whatever the size of the map,
+ * but the JVM must be allowed enough direct memory (-XX:MaxDirectMemorySize) for a big map.
+ */
+class DirectCellStorage implements CellStorage {
+
+    // cells per terrain chunk, 2^28 ints is 1 GiB
+    static final int CHUNK_SHIFT = 28;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private ByteBuffer[] terrainChunks;
+    private ByteBuffer impassable;
+
+    /**
+     * Use existing buffers, whose byte order is set to little-endian.
+     *
+     * @param terrainChunks the terrain costs, 2^28 cells per chunk and the rest in the last one
+     * @param impassable    the impassable bits, at least (cellNum + 7) / 8 bytes
+     */
+    DirectCellStorage(ByteBuffer[] terrainChunks, ByteBuffer impassable) {
+        this.terrainChunks = terrainChunks;
+        this.impassable = impassable;
+        for (ByteBuffer chunk : terrainChunks) {
+            chunk.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    } // end of DirectCellStorage()
+
+    /**
+     * @param cellNum number of cells, all passable with terrain cost 1
+     * @return new storage in freshly allocated direct buffers
+     */
+    static DirectCellStorage allocate(int cellNum) {
+        ByteBuffer[] chunks = new ByteBuffer[chunkNum(cellNum)];
+        for (int k = 0; k < chunks.length; k++) {
+            int chunkCells = Math.min(cellNum - (k << CHUNK_SHIFT), 1 << CHUNK_SHIFT);
+            chunks[k] = ByteBuffer.allocateDirect(chunkCells * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < chunkCells; i++) {
+                chunks[k].putInt(i * Integer.BYTES, 1);
+            }
+        }
+        // direct buffers start zeroed, so every cell is passable
+        return new DirectCellStorage(chunks, ByteBuffer.allocateDirect((cellNum + 7) >>> 3));
+    }
+
+    /**
+     * @return the number of terrain chunks of a map with the given number of cells
+     */
+    static int chunkNum(int cellNum) {
+        return (int) (((long) cellNum + CHUNK_MASK) >>> CHUNK_SHIFT);
+    }
+
+    @Override
+    public boolean isImpassable(int cell) {
+        return (impassable.get(cell >>> 3) & (1 << (cell & 7))) != 0;
+    }
+
+    @Override
+    public void setImpassable(int cell, boolean isImpassable) {
+        int bits = impassable.get(cell >>> 3);
+        bits = isImpassable ? bits | 1 << (cell & 7) : bits & ~(1 << (cell & 7));
+        impassable.put(cell >>> 3, (byte) bits);
+    }
+
+    @Override
+    public int getTerrainCost(int cell) {
+        return terrainChunks[cell >>> CHUNK_SHIFT].getInt((cell & CHUNK_MASK) << 2);
+    }
+
+    @Override
+    public void setTerrainCost(int cell, int cost) {
+        terrainChunks[cell >>> CHUNK_SHIFT].putInt((cell & CHUNK_MASK) << 2, cost);
+    }
+
+} // end of class DirectCellStorage
@@ -0,0 +1,47 @@
+package map;
+
+import java.util.Arrays;
+
+/**
+ * Cells kept in Java arrays: one int terrain cost per cell and one bit per cell for the impassable flag.
+ */
+class HeapCellStorage implements CellStorage {
+
+    private int[] terrainCosts;
+    // bit (cell & 63) of word (cell >>> 6)
+    private long[] impassable;
+
+    /**
+     * @param cellNum number of cells, all passable with terrain cost 1
+     */
+    HeapCellStorage(int cellNum) {
+        this.terrainCosts = new int[cellNum];
+        this.impassable = new long[(cellNum + 63) >>> 6];
+        Arrays.fill(terrainCosts, 1);
+    } // end of HeapCellStorage()
+
+    @Override
+    public boolean isImpassable(int cell) {
+        return (impassable[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    @Override
+    public void setImpassable(int cell, boolean isImpassable) {
+        if (isImpassable) {
+            impassable[cell >>> 6] |= 1L << cell;
+        } else {
+            impassable[cell >>> 6] &= ~(1L << cell);
+        }
+    }
+
+    @Override
+    public int getTerrainCost(int cell) {
+        return terrainCosts[cell];
+    }
+
+    @Override
+    public void setTerrainCost(int cell, int cost) {
+        terrainCosts[cell] = cost;
+    }
+
+} // end of class HeapCellStorage
@@ -0,0 +1,34 @@
+package map;
+
+import java.io.IOException;
+
+/**
+ * An error in a map parameter file, with the file and the line it is on.
+ */
+public class MapFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String fileName;
+    private final int lineNumber;
+
+    /**
+     * @param fileName   Name of the file.
+     * @param lineNumber Line of the error, counted from 1.
+     * @param message    What is wrong.
+     */
+    public MapFormatException(String fileName, int lineNumber, String message) {
+        super(fileName + ":" + lineNumber + ": " + message);
+        this.fileName = fileName;
+        this.lineNumber = lineNumber;
+    } // end of MapFormatException()
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+} // end of class MapFormatException
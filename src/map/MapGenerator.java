@@ -0,0 +1,255 @@
+package map;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/**
+ * Generator of synthetic maps, for testing how the path finders scale.
+ * <p>
+ * Every topology writes the cells straight into the storage of the map, row by row, and needs no memory
+ * besides the map itself, so maps of a hundred million cells can be generated (off the heap if need be).
+ * The same topology, size, settings and seed always give the same map.
+ * The map is given no origin, destination or way point, they are chosen afterwards.
+ */
+public class MapGenerator {
+
+    /**
+     * The layouts of the generated maps.
+     */
+    public enum Topology {
+        // impassable cells scattered at random
+        RANDOM,
+        // a perfect maze of one cell wide corridors, every corridor cell reachable from every other one
+        MAZE,
+        // rooms on a grid of blocks, each joined to its right and lower neighbours by a corridor
+        ROOMS,
+        // diagonal bands of terrain cost, no impassable cell
+        BANDS
+    }
+
+    private Topology topology;
+    private double obstacleDensity = 0.2;
+    private int terrainSpread = 1;
+    private int blockSize = 16;
+    private long seed = 1;
+    private StorageType storageType = StorageType.HEAP;
+
+    public MapGenerator(Topology topology) {
+        this.topology = topology;
+    } // end of MapGenerator()
+
+    /**
+     * @param obstacleDensity the probability of a cell being impassable on a RANDOM map, 0.2 by default
+     */
+    public MapGenerator setObstacleDensity(double obstacleDensity) {
+        if (obstacleDensity < 0 || obstacleDensity >= 1) {
+            throw new IllegalArgumentException("Obstacle density must be at least 0 and less than 1.");
+        }
+        this.obstacleDensity = obstacleDensity;
+        return this;
+    }
+
+    /**
+     * @param terrainSpread the largest terrain cost, 1 by default for a map without terrain. The passable cells
+     *                      get a cost drawn from 1 to it, or a BANDS map one cost per band.
+     */
+    public MapGenerator setTerrainSpread(int terrainSpread) {
+        if (terrainSpread < 1) {
+            throw new IllegalArgumentException("Terrain spread must be 1 or more.");
+        }
+        this.terrainSpread = terrainSpread;
+        return this;
+    }
+
+    /**
+     * @param blockSize the rows and columns of a block of a ROOMS map, or the width of a band, 16 by default
+     */
+    public MapGenerator setBlockSize(int blockSize) {
+        if (blockSize < 4) {
+            throw new IllegalArgumentException("Block size must be 4 or more.");
+        }
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    public MapGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * @param storageType where the map stores its cells, HEAP by default
+     */
+    public MapGenerator setStorageType(StorageType storageType) {
+        this.storageType = storageType;
+        return this;
+    }
+
+    /**
+     * @param rowNum Number of rows.
+     * @param colNum Number of columns.
+     * @return the generated map
+     */
+    public PathMap generate(int rowNum, int colNum) {
+        if (rowNum <= 0 || colNum <= 0) {
+            throw new IllegalArgumentException("Map dimensions cannot be 0 or less.");
+        }
+        PathMap map = new PathMap();
+        map.isVisu = false;
+        map.setStorageType(storageType);
+        map.initMap(rowNum, colNum, new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+
+        SplittableRandom random = new SplittableRandom(seed);
+        switch (topology) {
+            case RANDOM:
+                generateRandom(map, random);
+                break;
+            case MAZE:
+                generateMaze(map, random);
+                break;
+            case ROOMS:
+                generateRooms(map, random);
+                break;
+            case BANDS:
+                generateBands(map, random);
+                return map;
+        }
+        if (terrainSpread > 1) {
+            // drawn after the layout from a random of its own, so the layout is the same with or without terrain
+            SplittableRandom terrainRandom = new SplittableRandom(~seed);
+            for (int cell = 0; cell < map.getCellNum(); cell++) {
+                if (!map.isImpassable(cell)) {
+                    map.setTerrainCost(cell, 1 + terrainRandom.nextInt(terrainSpread));
+                }
+            }
+        }
+        return map;
+    } // end of generate()
+
+    private void generateRandom(PathMap map, SplittableRandom random) {
+        for (int cell = 0; cell < map.getCellNum(); cell++) {
+            if (random.nextDouble() < obstacleDensity) {
+                map.setImpassable(cell, true);
+            }
+        }
+    }
+
+    /**
+     * Sidewinder maze: the maze cells are the cells of even row and column, and the cells between two of them
+     * are the passages. Row by row, a run of maze cells is joined eastwards until it is closed at random,
+     * and then one cell of the run is joined to the row above, so only the current run is remembered.
+     */
+    private void generateMaze(PathMap map, SplittableRandom random) {
+        fillImpassable(map);
+        int mazeRows = (map.sizeR + 1) / 2;
+        int mazeCols = (map.sizeC + 1) / 2;
+        for (int i = 0; i < mazeRows; i++) {
+            int runStart = 0;
+            for (int j = 0; j < mazeCols; j++) {
+                carve(map, 2 * i, 2 * j);
+                boolean isLastColumn = j == mazeCols - 1;
+                // the first row is one corridor, as there is no row above to join
+                boolean isEast = !isLastColumn && (i == 0 || random.nextBoolean());
+                if (isEast) {
+                    carve(map, 2 * i, 2 * j + 1);
+                } else if (i > 0) {
+                    int k = runStart + random.nextInt(j - runStart + 1);
+                    carve(map, 2 * i - 1, 2 * k);
+                    runStart = j + 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * The map is cut into blocks, each with a room of random size and place inside it, one cell of wall at
+     * least around it. The centre of every room is joined to the centres of the rooms of the next block
+     * to the right and below by an L shaped corridor which stays in the two blocks, so every room is reachable.
+     */
+    private void generateRooms(PathMap map, SplittableRandom random) {
+        fillImpassable(map);
+        int blockRows = (map.sizeR + blockSize - 1) / blockSize;
+        int blockCols = (map.sizeC + blockSize - 1) / blockSize;
+        // centres of the rooms of the previous block row, and of the previous block of this row
+        int[] aboveRow = new int[blockCols];
+        int[] aboveCol = new int[blockCols];
+        for (int i = 0; i < blockRows; i++) {
+            int leftRow = -1;
+            int leftCol = -1;
+            for (int j = 0; j < blockCols; j++) {
+                int r0 = i * blockSize;
+                int c0 = j * blockSize;
+                int height = Math.min(blockSize, map.sizeR - r0);
+                int width = Math.min(blockSize, map.sizeC - c0);
+                int roomHeight = roomSpan(height, random);
+                int roomWidth = roomSpan(width, random);
+                int top = r0 + (height > roomHeight + 1 ? 1 + random.nextInt(height - roomHeight - 1) : 0);
+                int left = c0 + (width > roomWidth + 1 ? 1 + random.nextInt(width - roomWidth - 1) : 0);
+                for (int r = top; r < top + roomHeight; r++) {
+                    for (int c = left; c < left + roomWidth; c++) {
+                        carve(map, r, c);
+                    }
+                }
+
+                int centreRow = top + roomHeight / 2;
+                int centreCol = left + roomWidth / 2;
+                if (j > 0) carveCorridor(map, leftRow, leftCol, centreRow, centreCol);
+                if (i > 0) carveCorridor(map, aboveRow[j], aboveCol[j], centreRow, centreCol);
+                leftRow = centreRow;
+                leftCol = centreCol;
+                aboveRow[j] = centreRow;
+                aboveCol[j] = centreCol;
+            }
+        }
+    }
+
+    /**
+     * @return the size of a room in a block span of the given size, leaving room for walls when there is some
+     */
+    private static int roomSpan(int span, SplittableRandom random) {
+        int maximum = Math.max(1, span - 2);
+        int minimum = Math.max(1, maximum / 3);
+        return minimum + random.nextInt(maximum - minimum + 1);
+    }
+
+    /**
+     * Carve from (r1, c1) along the row to column c2, then along the column to (r2, c2).
+     */
+    private static void carveCorridor(PathMap map, int r1, int c1, int r2, int c2) {
+        for (int c = Math.min(c1, c2); c <= Math.max(c1, c2); c++) {
+            carve(map, r1, c);
+        }
+        for (int r = Math.min(r1, r2); r <= Math.max(r1, r2); r++) {
+            carve(map, r, c2);
+        }
+    }
+
+    /**
+     * Bands of blockSize cells across the diagonal, each with a cost of its own, so both straight directions
+     * cross them and the cheapest path bends towards the cheap bands.
+     */
+    private void generateBands(PathMap map, SplittableRandom random) {
+        int bandNum = (map.sizeR + map.sizeC - 2) / blockSize + 1;
+        int[] bandCost = new int[bandNum];
+        for (int k = 0; k < bandNum; k++) {
+            bandCost[k] = 1 + random.nextInt(terrainSpread);
+        }
+        for (int r = 0; r < map.sizeR; r++) {
+            for (int c = 0; c < map.sizeC; c++) {
+                int cost = bandCost[(r + c) / blockSize];
+                if (cost != 1) map.setTerrainCost(map.index(r, c), cost);
+            }
+        }
+    }
+
+    private static void fillImpassable(PathMap map) {
+        for (int cell = 0; cell < map.getCellNum(); cell++) {
+            map.setImpassable(cell, true);
+        }
+    }
+
+    private static void carve(PathMap map, int r, int c) {
+        map.setImpassable(map.index(r, c), false);
+    }
+
+} // end of class MapGenerator
@@ -0,0 +1,168 @@
+package map;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streaming reader of parameter files, which are lines of integers separated by spaces or tabs.
+ * <p>
+ * The file is read through one byte buffer and the integers of a line are parsed in place into one reused
+ * int array, so no object is created per line or per number, however long the file is.
+ * Besides files, it can read any channel, such as the input of a socket.
+ */
+public class ParaTokenizer implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final String fileName;
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] bytes;
+    private int position;
+    private int limit;
+    private boolean isEnd;
+
+    // integers of the current line
+    private int[] values = new int[16];
+    private int count;
+    private int lineNumber;
+
+    public ParaTokenizer(File file) throws IOException {
+        this(FileChannel.open(file.toPath(), StandardOpenOption.READ), file.getPath());
+    } // end of ParaTokenizer()
+
+    /**
+     * @param channel where the lines are read from, closed with the tokenizer
+     * @param name    the name of the input in error messages
+     */
+    public ParaTokenizer(ReadableByteChannel channel, String name) {
+        this.fileName = name;
+        this.channel = channel;
+        this.bytes = new byte[BUFFER_SIZE];
+        this.buffer = ByteBuffer.wrap(bytes);
+    } // end of ParaTokenizer()
+
+    /**
+     * Read the next line.
+     *
+     * @return the number of integers on the line, or -1 if there are no more lines
+     * @throws MapFormatException if the line has anything but integers on it, the end of the line is not read then
+     */
+    public int nextLine() throws IOException {
+        count = 0;
+        if (peek() < 0) {
+            return -1;
+        }
+        lineNumber++;
+
+        int b;
+        while ((b = read()) >= 0 && b != '\n') {
+            if (b == ' ' || b == '\t' || b == '\r') {
+                continue;
+            }
+            boolean isNegative = b == '-';
+            if (isNegative) {
+                b = peek();
+                if (b >= '0' && b <= '9') position++;
+            }
+            if (b < '0' || b > '9') {
+                throw error(b < 0 || b == '\n' || b == '\r' ? "Number expected after '-'." : "Unexpected character '" + (char) b + "'.");
+            }
+
+            // accumulate negatively, so Integer.MIN_VALUE fits too
+            long value = 0;
+            while (b >= '0' && b <= '9') {
+                value = value * 10 - (b - '0');
+                if (value < Integer.MIN_VALUE) throw error("Number too large.");
+                b = peek();
+                if (b >= '0' && b <= '9') position++;
+            }
+            if (!isNegative && value == Integer.MIN_VALUE) throw error("Number too large.");
+            if (b >= 0 && b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                throw error("Unexpected character '" + (char) b + "'.");
+            }
+            add((int) (isNegative ? value : -value));
+        }
+        return count;
+    } // end of nextLine()
+
+    /**
+     * Skip the rest of the current line, so reading can go on after an error on it.
+     */
+    public void skipLine() throws IOException {
+        int b;
+        do {
+            b = read();
+        } while (b >= 0 && b != '\n');
+    }
+
+    /**
+     * @return the i-th integer of the current line
+     */
+    public int get(int i) {
+        return values[i];
+    }
+
+    /**
+     * @return the current line, counted from 1
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return an error on the current line
+     */
+    public MapFormatException error(String message) {
+        return new MapFormatException(fileName, lineNumber, message);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void add(int value) {
+        if (count == values.length) values = Arrays.copyOf(values, count * 2);
+        values[count++] = value;
+    }
+
+    /**
+     * @return the next byte, without consuming it, or -1 at the end of the file
+     */
+    private int peek() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return bytes[position] & 0xFF;
+    }
+
+    /**
+     * @return the next byte, or -1 at the end of the file
+     */
+    private int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return bytes[position++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if (isEnd) return false;
+        buffer.clear();
+        int num;
+        do {
+            num = channel.read(buffer);
+        } while (num == 0);
+        if (num < 0) {
+            isEnd = true;
+            return false;
+        }
+        position = 0;
+        limit = num;
+        return true;
+    }
+
+} // end of class ParaTokenizer
@@ -12,6 +12,12 @@ import map.Coordinate;
  * Class of a map (for path finding).
  * For the assignment it is used to read in information but also to visualise it.
  * It is a grid representation.
+ * <p>
+ * The cells are stored by index r * sizeC + c: one int terrain cost per cell and one bit per cell for the
+ * impassable flag, so a map costs about four bytes a cell instead of one object a cell. They are kept in
+ * Java arrays, or outside the heap for maps too big for it (see StorageType).
+ * The searches read them through the cell index accessors, and Coordinates handed out by the map are
+ * only views of the storage, so setting their terrain cost or impassable flag changes the map.
  */
 public class PathMap {
     /**
@@ -21,8 +27,10 @@ public class PathMap {
     public int sizeR;
     // number of columns
     public int sizeC;
-    // 2D grid of cells
-    public Coordinate cells[][] = null;
+    // terrain costs and impassable flags of the cells, indexed by r * sizeC + c
+    private CellStorage storage;
+    // where initMap() stores the cells
+    private StorageType storageType = StorageType.HEAP;
     // List of origin cells/coordinates
     public List<Coordinate> originCells;
     // list of destination cells/coordinates
@@ -31,6 +39,8 @@ public class PathMap {
     public List<Coordinate> waypointCells;
     // whether to visualise or not
     public boolean isVisu = true;
+    // number of changes made to the cells, so users can tell their cached results are stale
+    private long version = 0;
 
 
     /**
@@ -46,6 +56,55 @@ public class PathMap {
      */
     public void initMap(int rowNum, int colNum, List<Coordinate> oriCells, List<Coordinate> desCells, Set<Coordinate> impassableCells,
                         Map<Coordinate, Integer> terrainCells, List<Coordinate> waypointCells) {
+        initMap(rowNum, colNum, oriCells, desCells, waypointCells);
+
+        // only the listed cells differ from the default, so only they are visited
+        for (Coordinate coord : impassableCells) {
+            if (isIn(coord)) {
+                setImpassable(index(coord.getRow(), coord.getColumn()), true);
+            }
+        }
+        // should not be both
+        for (Map.Entry<Coordinate, Integer> entry : terrainCells.entrySet()) {
+            Coordinate coord = entry.getKey();
+            if (isIn(coord)) {
+                setTerrainCost(index(coord.getRow(), coord.getColumn()), entry.getValue());
+            }
+        }
+    } // end of initMap()
+
+
+    /**
+     * Initialise the map with every cell passable and of terrain cost 1, for loaders which then set the cells
+     * one by one.
+     *
+     * @param rowNum        Number of rows.
+     * @param colNum        Number of columns.
+     * @param oriCells      List of origin coordinates.
+     * @param desCells      List of destination coordinates.
+     * @param waypointCells List of waypoint coordinates.
+     */
+    public void initMap(int rowNum, int colNum, List<Coordinate> oriCells, List<Coordinate> desCells,
+                        List<Coordinate> waypointCells) {
+        if ((long) rowNum * colNum > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Map cannot have more than " + Integer.MAX_VALUE + " cells.");
+        }
+        initMap(rowNum, colNum, oriCells, desCells, waypointCells, storageType.create(rowNum * colNum));
+    } // end of initMap()
+
+
+    /**
+     * Initialise the map on cells which are already stored, such as the mapped planes of a binary map file.
+     *
+     * @param rowNum        Number of rows.
+     * @param colNum        Number of columns.
+     * @param oriCells      List of origin coordinates.
+     * @param desCells      List of destination coordinates.
+     * @param waypointCells List of waypoint coordinates.
+     * @param storage       The cells, rowNum * colNum of them.
+     */
+    void initMap(int rowNum, int colNum, List<Coordinate> oriCells, List<Coordinate> desCells,
+                 List<Coordinate> waypointCells, CellStorage storage) {
         // initialise parameters
         sizeR = rowNum;
         sizeC = colNum;
@@ -53,27 +112,8 @@ public class PathMap {
         destCells = desCells;
         this.waypointCells = waypointCells;
 
-        cells = new Coordinate[sizeR][sizeC];
-
-        // construct the coordinates in the grid and also update information about impassable
-        // and terrain costs.
-        for (int i = 0; i < sizeR; i++) {
-            for (int j = 0; j < sizeC; j++) {
-                Coordinate coord = new Coordinate(i, j);
-                // add impassable cells
-                if (impassableCells.contains(coord)) {
-                    coord.setImpassable(true);
-                }
-                // add terrain information
-                // should not be both
-                if (terrainCells.containsKey(coord)) {
-                    int cost = terrainCells.get(coord).intValue();
-                    coord.setTerrainCost(cost);
-                }
-
-                cells[i][j] = coord;
-            }
-        }
+        this.storage = storage;
+        version++;
     } // end of initMap()
 
 
@@ -111,10 +151,91 @@ public class PathMap {
      * Check if a coordinate (r,c) is passable/can be traversed.
      */
     public boolean isPassable(int r, int c) {
-        return isIn(r, c) && !cells[r][c].getImpassable();
+        return isIn(r, c) && !isImpassable(index(r, c));
     } // end of isPassable()
 
 
+    //
+    // Cell index accessors, cell = r * sizeC + c
+    //
+
+
+    public int index(int r, int c) {
+        return r * sizeC + c;
+    } // end of index()
+
+
+    public int getCellNum() {
+        return sizeR * sizeC;
+    } // end of getCellNum()
+
+
+    public boolean isImpassable(int cell) {
+        return storage.isImpassable(cell);
+    } // end of isImpassable()
+
+
+    public int getTerrainCost(int cell) {
+        return storage.getTerrainCost(cell);
+    } // end of getTerrainCost()
+
+
+    public void setImpassable(int cell, boolean isImpassable) {
+        storage.setImpassable(cell, isImpassable);
+        version++;
+    } // end of setImpassable()
+
+
+    public void setTerrainCost(int cell, int cost) {
+        storage.setTerrainCost(cell, cost);
+        version++;
+    } // end of setTerrainCost()
+
+
+    /**
+     * A view of the cell (r, c): reading it reads the map, and setting its terrain cost or impassable flag
+     * changes the map.
+     *
+     * @param r Row coordinate, in the map.
+     * @param c Column coordinate, in the map.
+     * @return The coordinate of the cell.
+     */
+    public Coordinate coordinate(int r, int c) {
+        return new Coordinate(this, r, c);
+    } // end of coordinate()
+
+
+    public Coordinate coordinate(int cell) {
+        return coordinate(cell / sizeC, cell % sizeC);
+    } // end of coordinate()
+
+
+    /**
+     * Choose where the cells are stored, HEAP by default. It must be set before initMap().
+     *
+     * @param storageType The storage of the cells.
+     */
+    public void setStorageType(StorageType storageType) {
+        this.storageType = storageType;
+    } // end of setStorageType()
+
+
+    public StorageType getStorageType() {
+        return storageType;
+    } // end of getStorageType()
+
+
+    /**
+     * Version of the cells, it changes whenever the map is initialised or a cell is made (im)passable
+     * or given another terrain cost.
+     *
+     * @return The current version.
+     */
+    public long getVersion() {
+        return version;
+    } // end of getVersion()
+
+
     /**
      * Draw the map in a window.
      */
@@ -160,18 +281,17 @@ public class PathMap {
 
         for (int r = 0; r < sizeR; r++) {
             for (int c = 0; c < sizeC; c++) {
-                // System.out.println(cells[r][c]);
                 StdDraw.line(c + 1, r, c + 1, r + 1);
                 StdDraw.line(c, r + 1, c + 1, r + 1);
                 StdDraw.line(c, r, c, r + 1);
                 StdDraw.line(c, r, c + 1, r);
                 // draw impassable cells
-                if (cells[r][c].getImpassable()) {
+                if (isImpassable(index(r, c))) {
                     StdDraw.filledSquare(c + 0.5, r + 0.5, 0.5);
                 }
                 // draw terrain costs
-                if (cells[r][c].getTerrainCost() > 1) {
-                    StdDraw.text(c + 0.5, r + 0.5, String.valueOf(cells[r][c].getTerrainCost()));
+                if (getTerrainCost(index(r, c)) > 1) {
+                    StdDraw.text(c + 0.5, r + 0.5, String.valueOf(getTerrainCost(index(r, c))));
                 }
             }
         }
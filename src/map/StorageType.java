@@ -0,0 +1,29 @@
+package map;
+
+/**
+ * Where a map keeps the terrain costs and impassable flags of its cells.
+ */
+public enum StorageType {
+
+    /**
+     * Java arrays on the heap, the fastest to read.
+     */
+    HEAP,
+
+    /**
+     * Direct byte buffers outside the heap, so the heap and the garbage collector do not grow with the map.
+     */
+    OFF_HEAP;
+
+    /**
+     * @param cellNum number of cells
+     * @return a new storage of this type, all the cells passable with terrain cost 1
+     */
+    CellStorage create(int cellNum) {
+        if (this == OFF_HEAP) {
+            return DirectCellStorage.allocate(cellNum);
+        }
+        return new HeapCellStorage(cellNum);
+    }
+
+} // end of enum StorageType
@@ -0,0 +1,127 @@
+package map;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reader of the text parameter, terrain and waypoint files of a map.
+ * <p>
+ * The files are streamed through a ParaTokenizer and every impassable cell and terrain cost is written
+ * straight into the storage of the map, so nothing is kept per line. Errors are reported as
+ * MapFormatExceptions with the file and line they are on.
+ */
+public class TextMapReader {
+
+    private TextMapReader() {
+    } // end of TextMapReader()
+
+    /**
+     * Read a map.
+     *
+     * @param paraFile     The parameter file: the number of rows and columns, the origins, the destinations,
+     *                     and then one impassable cell per line.
+     * @param terrainFile  The terrain file, one cell and its cost per line, or null.
+     * @param waypointFile The waypoint file, one cell per line, or null.
+     * @param storageType  Where the map stores its cells.
+     * @return The map.
+     * @throws MapFormatException If a file is not well formed.
+     * @throws IOException        If a file cannot be read.
+     */
+    public static PathMap read(File paraFile, File terrainFile, File waypointFile, StorageType storageType)
+            throws IOException {
+        PathMap map = new PathMap();
+        map.setStorageType(storageType);
+
+        try (ParaTokenizer in = new ParaTokenizer(paraFile)) {
+            // read in row and column number
+            if (in.nextLine() != 2) {
+                throw in.error("There should be two numbers representing the number of rows and columns.");
+            }
+            int rowNum = in.get(0);
+            int colNum = in.get(1);
+            if (rowNum <= 0 || colNum <= 0) {
+                throw in.error("Map dimensions cannot be 0 or less.");
+            }
+            if ((long) rowNum * colNum > Integer.MAX_VALUE) {
+                throw in.error("Map cannot have more than " + Integer.MAX_VALUE + " cells.");
+            }
+
+            // read in origin and destination coordinates
+            List<Coordinate> originCells = readCoordinateLine(in, rowNum, colNum, "Origin");
+            List<Coordinate> destCells = readCoordinateLine(in, rowNum, colNum, "Destination");
+            map.initMap(rowNum, colNum, originCells, destCells, new ArrayList<>());
+
+            // read in impassable coordinates
+            int num;
+            while ((num = in.nextLine()) >= 0) {
+                if (num == 0) continue;
+                if (num != 2) {
+                    throw in.error("Impassable coordinates should be in pairs.");
+                }
+                map.setImpassable(cellOf(in, map, in.get(0), in.get(1), "Impassable"), true);
+            }
+        }
+
+        if (terrainFile != null) {
+            try (ParaTokenizer in = new ParaTokenizer(terrainFile)) {
+                int num;
+                while ((num = in.nextLine()) >= 0) {
+                    if (num == 0) continue;
+                    if (num != 3) {
+                        throw in.error("Terrain should be two coordinates and cost.");
+                    }
+                    if (in.get(2) < 1) {
+                        throw in.error("Terrain cost must be 1 or more.");
+                    }
+                    map.setTerrainCost(cellOf(in, map, in.get(0), in.get(1), "Terrain"), in.get(2));
+                }
+            }
+        }
+
+        if (waypointFile != null) {
+            try (ParaTokenizer in = new ParaTokenizer(waypointFile)) {
+                int num;
+                while ((num = in.nextLine()) >= 0) {
+                    if (num == 0) continue;
+                    if (num != 2) {
+                        throw in.error("Waypoints should be two coordinates.");
+                    }
+                    cellOf(in, map, in.get(0), in.get(1), "Waypoint");
+                    map.waypointCells.add(new Coordinate(in.get(0), in.get(1)));
+                }
+            }
+        }
+        return map;
+    } // end of read()
+
+    private static List<Coordinate> readCoordinateLine(ParaTokenizer in, int rowNum, int colNum, String kind)
+            throws IOException {
+        int num = in.nextLine();
+        if (num < 2 || num % 2 != 0) {
+            throw in.error(kind + " coordinates should be in pairs.");
+        }
+        List<Coordinate> coordinates = new ArrayList<>(num / 2);
+        for (int i = 0; i < num; i += 2) {
+            int r = in.get(i);
+            int c = in.get(i + 1);
+            if (r < 0 || r >= rowNum || c < 0 || c >= colNum) {
+                throw in.error(kind + " coordinates cannot be less than 0 or greater than the number of rows or columns in map.");
+            }
+            coordinates.add(new Coordinate(r, c));
+        }
+        return coordinates;
+    }
+
+    /**
+     * @return the index of cell (r, c), which must be in the map
+     */
+    private static int cellOf(ParaTokenizer in, PathMap map, int r, int c, String kind) throws MapFormatException {
+        if (!map.isIn(r, c)) {
+            throw in.error(kind + " coordinates cannot be less than 0 or greater than the number of rows or columns in map.");
+        }
+        return map.index(r, c);
+    }
+
+} // end of class TextMapReader
@@ -0,0 +1,124 @@
+package map;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * Writer of the text parameter, terrain and waypoint files of a map, which TextMapReader reads back.
+ * <p>
+ * The numbers are formatted straight into one byte buffer, so no object is created per line, and a map
+ * of a hundred million cells is written at the speed of the disk.
+ */
+public class TextMapWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final byte[] bytes;
+    private int position;
+    // digits of a number, least significant first
+    private final byte[] digits = new byte[11];
+
+    private TextMapWriter(File file) throws IOException {
+        this.out = new FileOutputStream(file);
+        this.bytes = new byte[BUFFER_SIZE];
+    } // end of TextMapWriter()
+
+    /**
+     * Write a map. The parameter file gets the size, the origins, the destinations and one impassable cell
+     * per line, the terrain file every passable cell whose cost is not 1, and the waypoint file every way point.
+     *
+     * @param map          The map to write, whatever its storage.
+     * @param paraFile     The parameter file, replaced if it exists.
+     * @param terrainFile  The terrain file, or null to leave the terrain out.
+     * @param waypointFile The waypoint file, or null to leave the way points out.
+     */
+    public static void write(PathMap map, File paraFile, File terrainFile, File waypointFile) throws IOException {
+        int cellNum = map.getCellNum();
+        try (TextMapWriter para = new TextMapWriter(paraFile)) {
+            para.writeInt(map.sizeR).writeSpace().writeInt(map.sizeC).writeNewLine();
+            para.writeCoordinateLine(map.originCells);
+            para.writeCoordinateLine(map.destCells);
+            for (int cell = 0; cell < cellNum; cell++) {
+                if (map.isImpassable(cell)) {
+                    para.writeInt(cell / map.sizeC).writeSpace().writeInt(cell % map.sizeC).writeNewLine();
+                }
+            }
+        }
+
+        if (terrainFile != null) {
+            try (TextMapWriter terrain = new TextMapWriter(terrainFile)) {
+                for (int cell = 0; cell < cellNum; cell++) {
+                    if (!map.isImpassable(cell) && map.getTerrainCost(cell) != 1) {
+                        terrain.writeInt(cell / map.sizeC).writeSpace().writeInt(cell % map.sizeC).writeSpace()
+                                .writeInt(map.getTerrainCost(cell)).writeNewLine();
+                    }
+                }
+            }
+        }
+
+        if (waypointFile != null) {
+            try (TextMapWriter waypoints = new TextMapWriter(waypointFile)) {
+                for (Coordinate coord : map.waypointCells) {
+                    waypoints.writeInt(coord.getRow()).writeSpace().writeInt(coord.getColumn()).writeNewLine();
+                }
+            }
+        }
+    } // end of write()
+
+    private void writeCoordinateLine(List<Coordinate> coordinates) throws IOException {
+        for (int i = 0; i < coordinates.size(); i++) {
+            if (i > 0) writeSpace();
+            writeInt(coordinates.get(i).getRow()).writeSpace().writeInt(coordinates.get(i).getColumn());
+        }
+        writeNewLine();
+    }
+
+    private TextMapWriter writeInt(int value) throws IOException {
+        if (position + 11 > bytes.length) flush();
+        // as a long, so Integer.MIN_VALUE can be negated too
+        long v = value;
+        if (v < 0) {
+            bytes[position++] = '-';
+            v = -v;
+        }
+        int num = 0;
+        do {
+            digits[num++] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        while (num > 0) {
+            bytes[position++] = digits[--num];
+        }
+        return this;
+    }
+
+    private TextMapWriter writeSpace() throws IOException {
+        return writeByte(' ');
+    }
+
+    private TextMapWriter writeNewLine() throws IOException {
+        return writeByte('\n');
+    }
+
+    private TextMapWriter writeByte(int b) throws IOException {
+        if (position == bytes.length) flush();
+        bytes[position++] = (byte) b;
+        return this;
+    }
+
+    private void flush() throws IOException {
+        out.write(bytes, 0, position);
+        position = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+} // end of class TextMapWriter
@@ -0,0 +1,76 @@
+package pathFinder;
+
+import map.Coordinate;
+import map.PathMap;
+
+import java.util.List;
+
+/**
+ * A* path finder.
+ * <p>
+ * It searches exactly like DijkstraPathFinder, but the pending coordinates are ordered by their distance
+ * from the origin plus the Manhattan distance to the closest destination scaled by the cheapest terrain cost of the map.
+ * Every move costs at least that much, so the estimate never exceeds the real distance
+ * and the path found is still the shortest one.
+ */
+public class AStarPathFinder extends DijkstraPathFinder {
+
+    // the cheapest cost of moving into any passable cell of the map, 0 until it is found
+    private int minimumTerrainCost;
+    // version of the map the cheapest cost was found on
+    private long minimumVersion;
+
+    public AStarPathFinder(PathMap map) {
+        super(map);
+    } // end of AStarPathFinder()
+
+    @Override
+    protected Heuristic heuristicTowards(List<Coordinate> destinations) {
+        final int sizeC = map.sizeC;
+        final int scale = getMinimumTerrainCost();
+        final int[] destinationRows = new int[destinations.size()];
+        final int[] destinationColumns = new int[destinations.size()];
+        for (int i = 0; i < destinations.size(); i++) {
+            destinationRows[i] = destinations.get(i).getRow();
+            destinationColumns[i] = destinations.get(i).getColumn();
+        }
+        // the minimum of admissible and consistent estimates is still admissible and consistent
+        return cell -> {
+            int r = cell / sizeC;
+            int c = cell - r * sizeC;
+            int closest = Integer.MAX_VALUE;
+            for (int i = 0; i < destinationRows.length; i++) {
+                closest = Math.min(closest, Math.abs(r - destinationRows[i]) + Math.abs(c - destinationColumns[i]));
+            }
+            return closest * scale;
+        };
+    } // end of heuristicTowards()
+
+    /**
+     * The cheapest cost is found again whenever the map has changed, as a cheaper cell would make
+     * the estimate exceed the real distance.
+     *
+     * @return the cheapest terrain cost of the current map
+     */
+    private synchronized int getMinimumTerrainCost() {
+        if (minimumTerrainCost == 0 || minimumVersion != map.getVersion()) {
+            this.minimumTerrainCost = findMinimumTerrainCost();
+            this.minimumVersion = map.getVersion();
+        }
+        return minimumTerrainCost;
+    }
+
+    /**
+     * @return the minimum terrain cost among all the passable cells, 1 if there is no passable cell
+     */
+    private int findMinimumTerrainCost() {
+        int minimum = Integer.MAX_VALUE;
+        for (int cell = 0; cell < map.getCellNum(); cell++) {
+            if (!map.isImpassable(cell)) {
+                minimum = Math.min(minimum, map.getTerrainCost(cell));
+            }
+        }
+        return minimum == Integer.MAX_VALUE ? 1 : minimum;
+    } // end of findMinimumTerrainCost()
+
+} // end of class AStarPathFinder
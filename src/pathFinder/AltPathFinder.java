@@ -0,0 +1,70 @@
+package pathFinder;
+
+import map.Coordinate;
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * ALT path finder: A* with landmark lower bounds.
+ * <p>
+ * Behind walls and through expensive terrain the Manhattan distance is far below the real distance,
+ * while the triangle inequality over exact landmark distances follows the detours of the map.
+ * The estimate is the larger of the two, so it is never weaker than the one of AStarPathFinder.
+ * The landmark table is built once per map, and can be shared with other finders on the same map.
+ */
+public class AltPathFinder extends AStarPathFinder {
+
+    private LandmarkTable landmarks;
+    private int landmarkNum;
+
+    public AltPathFinder(PathMap map) {
+        this(map, LandmarkTable.DEFAULT_LANDMARK_NUM);
+    } // end of AltPathFinder()
+
+    /**
+     * @param map         the map to search
+     * @param landmarkNum the number of landmarks of the table built on the first query
+     */
+    public AltPathFinder(PathMap map, int landmarkNum) {
+        super(map);
+        if (landmarkNum < 1) {
+            throw new IllegalArgumentException("At least one landmark is needed.");
+        }
+        this.landmarkNum = landmarkNum;
+    } // end of AltPathFinder()
+
+    /**
+     * @param map       the map to search
+     * @param landmarks the landmark table of the map
+     */
+    public AltPathFinder(PathMap map, LandmarkTable landmarks) {
+        super(map);
+        if (landmarks.getMap() != map) {
+            throw new IllegalArgumentException("The landmark table belongs to another map.");
+        }
+        this.landmarks = landmarks;
+        this.landmarkNum = landmarks.getLandmarkNum();
+    } // end of AltPathFinder()
+
+    @Override
+    protected Heuristic heuristicTowards(List<Coordinate> destinations) {
+        final Heuristic manhattan = super.heuristicTowards(destinations);
+        final Heuristic alt = getLandmarks().heuristicTowards(toIndices(destinations));
+        // the maximum of admissible and consistent estimates is still admissible and consistent
+        return cell -> Math.max(manhattan.estimate(cell), alt.estimate(cell));
+    } // end of heuristicTowards()
+
+    /**
+     * The table is built on the first query, and again whenever the map changes.
+     *
+     * @return the landmark table of the current map
+     */
+    public synchronized LandmarkTable getLandmarks() {
+        if (this.landmarks == null || !landmarks.isCurrent()) {
+            this.landmarks = new LandmarkTable(map, landmarkNum);
+        }
+        return landmarks;
+    }
+
+} // end of class AltPathFinder
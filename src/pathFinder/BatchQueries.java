@@ -0,0 +1,117 @@
+package pathFinder;
+
+import map.Coordinate;
+import map.ParaTokenizer;
+import map.PathMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Answer a whole file of routing queries on one loaded map, with one path finder.
+ * <p>
+ * Every non-empty line of the queries file is a query: the row and column of the origin, the row and column
+ * of the destination, and then the row and column of every way point, if any. Every answer is written out as
+ * soon as it is found, on a line of its own: the distance followed by the path, or "no path".
+ * The finder keeps its search cores from one query to the next, so they are only allocated once per batch.
+ */
+public class BatchQueries {
+
+    private BatchQueries() {
+    } // end of BatchQueries()
+
+    /**
+     * @param finder    the path finder of the map
+     * @param map       the map the queries are on
+     * @param queryFile the queries
+     * @param out       where the answers are written, in the order of the queries
+     * @return the number of queries answered
+     * @throws map.MapFormatException if a query is not well formed or has a coordinate outside the map
+     */
+    public static int run(DijkstraPathFinder finder, PathMap map, File queryFile, Writer out) throws IOException {
+        int queryNum = 0;
+        StringBuilder line = new StringBuilder();
+
+        try (ParaTokenizer in = new ParaTokenizer(queryFile)) {
+            int num;
+            while ((num = in.nextLine()) >= 0) {
+                if (num == 0) continue;
+                Route route = readQuery(in, num, map).answer(finder);
+
+                line.setLength(0);
+                appendAnswer(line, route, map.sizeC);
+                out.append(line);
+                queryNum++;
+            }
+        }
+        out.flush();
+        return queryNum;
+    } // end of run()
+
+    /**
+     * @param in  the tokenizer, on the line of the query
+     * @param num the number of integers on the line
+     * @param map the map the query is on
+     * @return the query of the current line
+     * @throws map.MapFormatException if the query is not well formed or has a coordinate outside the map
+     */
+    static Query readQuery(ParaTokenizer in, int num, PathMap map) throws IOException {
+        if (num < 4 || num % 2 != 0) {
+            throw in.error("A query should be an origin, a destination and way points, all in pairs.");
+        }
+        for (int i = 0; i < num; i += 2) {
+            if (!map.isIn(in.get(i), in.get(i + 1))) {
+                throw in.error("Query coordinates cannot be less than 0 or greater than the number of rows or columns in map.");
+            }
+        }
+
+        List<Coordinate> wayPoints = new ArrayList<>((num - 4) / 2);
+        for (int i = 4; i < num; i += 2) {
+            wayPoints.add(new Coordinate(in.get(i), in.get(i + 1)));
+        }
+        return new Query(new Coordinate(in.get(0), in.get(1)), new Coordinate(in.get(2), in.get(3)), wayPoints);
+    }
+
+    /**
+     * Append the answer line of a query: the distance followed by the path, or "no path".
+     *
+     * @param sizeC the number of columns of the map
+     */
+    static void appendAnswer(StringBuilder line, Route route, int sizeC) {
+        if (route.isFound()) {
+            line.append(route.getDistance());
+            for (int cell : route.getPathCells()) {
+                line.append(' ').append('(').append(cell / sizeC).append(',').append(cell % sizeC).append(')');
+            }
+        } else {
+            line.append("no path");
+        }
+        line.append('\n');
+    }
+
+    /**
+     * One routing query, read from a line of queries.
+     */
+    static class Query {
+
+        private Coordinate origin;
+        private Coordinate destination;
+        private List<Coordinate> wayPoints;
+
+        Query(Coordinate origin, Coordinate destination, List<Coordinate> wayPoints) {
+            this.origin = origin;
+            this.destination = destination;
+            this.wayPoints = wayPoints;
+        } // end of Query()
+
+        Route answer(DijkstraPathFinder finder) {
+            return finder.findRoute(Collections.singletonList(origin), Collections.singletonList(destination), wayPoints);
+        }
+
+    } // end of class Query
+
+} // end of class BatchQueries
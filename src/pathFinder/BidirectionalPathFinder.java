@@ -0,0 +1,34 @@
+package pathFinder;
+
+import map.Coordinate;
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * Bidirectional Dijkstra path finder.
+ * <p>
+ * Point to point searches grow one frontier from the origins and another one from the destinations
+ * until they meet, which settles roughly half the cells of a single Dijkstra on open maps.
+ */
+public class BidirectionalPathFinder extends DijkstraPathFinder {
+
+    public BidirectionalPathFinder(PathMap map) {
+        super(map);
+    } // end of BidirectionalPathFinder()
+
+    @Override
+    protected PathRecorder searchFromAny(SearchContext context, List<Coordinate> origins, List<Coordinate> destinations) {
+        // the search core is allocated once per context and reused by every leg searched with it
+        BidirectionalSearch search = context.getFinderCore(() -> new BidirectionalSearch(map, getQueueType()));
+
+        boolean isFound = search.search(toIndices(origins), toIndices(destinations));
+        BitSet nodeVisited = search.visitedCells();
+
+        if (!isFound) {
+            return PathRecorder.notFound(nodeVisited);
+        }
+        return new PathRecorder(map, search.getPath(), search.getDistance(), nodeVisited, true);
+    } // end of searchFromAny()
+
+} // end of class BidirectionalPathFinder
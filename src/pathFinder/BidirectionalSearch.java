@@ -0,0 +1,257 @@
+package pathFinder;
+
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * Bidirectional Dijkstra on cell indices.
+ * <p>
+ * A forward search grows from the origins and a backward search grows from the destinations,
+ * always expanding the side with the smaller frontier. Moving from a cell u into an adjacent cell v costs
+ * the terrain cost of v, so the backward search, which walks the edge u to v from v to u, charges the cost
+ * of the cell it is leaving rather than the cell it is entering, and never leaves an impassable cell.
+ * <p>
+ * Whenever a cell gets a label on both sides, forward distance plus backward distance is a candidate
+ * for the shortest distance. The search stops once the smallest keys of both frontiers add up to
+ * at least the best candidate, as no path through an unsettled cell can beat it any more.
+ */
+class BidirectionalSearch {
+
+    static final int INFINITY = GridSearch.INFINITY;
+    static final int NONE = GridSearch.NONE;
+
+    private PathMap map;
+    private int sizeR;
+    private int sizeC;
+
+    // forward search, parent is the previous cell on the path from the origin
+    private int[] forwardDistance;
+    private int[] forwardParent;
+    private BitSet forwardSettled;
+    private BitSet forwardReached;
+    private IntPriorityQueue forwardQueue;
+
+    // backward search, parent is the next cell on the path to the destination
+    private int[] backwardDistance;
+    private int[] backwardParent;
+    private BitSet backwardSettled;
+    private BitSet backwardReached;
+    private IntPriorityQueue backwardQueue;
+
+    // origins of the running search, they are the only impassable cells a path may contain
+    private BitSet originCells;
+
+    // the best candidate so far and the cell where both searches meet on it
+    private int bestDistance;
+    private int meetingCell;
+
+    /**
+     * @param map       the map to search
+     * @param queueType the priority queue both frontiers are kept in
+     */
+    BidirectionalSearch(PathMap map, QueueType queueType) {
+        this.map = map;
+        this.sizeR = map.sizeR;
+        this.sizeC = map.sizeC;
+        int cellNum = sizeR * sizeC;
+
+        this.forwardDistance = new int[cellNum];
+        this.forwardParent = new int[cellNum];
+        this.forwardSettled = new BitSet(cellNum);
+        this.forwardReached = new BitSet(cellNum);
+        int maxTerrainCost = GridSearch.maxTerrainCost(map);
+        this.forwardQueue = queueType.create(cellNum, maxTerrainCost);
+
+        this.backwardDistance = new int[cellNum];
+        this.backwardParent = new int[cellNum];
+        this.backwardSettled = new BitSet(cellNum);
+        this.backwardReached = new BitSet(cellNum);
+        this.backwardQueue = queueType.create(cellNum, maxTerrainCost);
+
+        this.originCells = new BitSet(cellNum);
+
+        Arrays.fill(forwardDistance, INFINITY);
+        Arrays.fill(backwardDistance, INFINITY);
+        Arrays.fill(forwardParent, NONE);
+        Arrays.fill(backwardParent, NONE);
+    } // end of BidirectionalSearch()
+
+    /**
+     * Find the shortest path from any of the origins to any of the destinations.
+     *
+     * @param origins      the origin cell indices
+     * @param destinations the destination cell indices
+     * @return true if a path has been found
+     */
+    boolean search(int[] origins, int[] destinations) {
+        reset();
+
+        for (int origin : origins) {
+            originCells.set(origin);
+            forwardDistance[origin] = 0;
+            forwardReached.set(origin);
+            forwardQueue.insertOrDecrease(origin, 0);
+        }
+        for (int destination : destinations) {
+            // a destination which is also an origin is reached without a move, even when it is impassable
+            if (forwardDistance[destination] == 0) {
+                bestDistance = 0;
+                meetingCell = destination;
+            }
+            // an impassable destination can never be entered
+            if (isImpassable(destination)) continue;
+            backwardDistance[destination] = 0;
+            backwardReached.set(destination);
+            backwardQueue.insertOrDecrease(destination, 0);
+        }
+
+        while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+            int forwardTop = forwardQueue.getKey(forwardQueue.peekMin());
+            int backwardTop = backwardQueue.getKey(backwardQueue.peekMin());
+            if (bestDistance != INFINITY && (long) forwardTop + backwardTop >= bestDistance) {
+                break;
+            }
+
+            if (forwardQueue.size() <= backwardQueue.size()) {
+                expandForward();
+            } else {
+                expandBackward();
+            }
+        }
+
+        return bestDistance != INFINITY;
+    } // end of search()
+
+    private void expandForward() {
+        int current = forwardQueue.pollMin();
+        forwardSettled.set(current);
+
+        int r = current / sizeC;
+        int c = current - r * sizeC;
+        // coordinate above, below, to the right and to the left
+        if (r + 1 < sizeR) relaxForward(current, current + sizeC);
+        if (r - 1 >= 0) relaxForward(current, current - sizeC);
+        if (c + 1 < sizeC) relaxForward(current, current + 1);
+        if (c - 1 >= 0) relaxForward(current, current - 1);
+    }
+
+    private void expandBackward() {
+        int current = backwardQueue.pollMin();
+        backwardSettled.set(current);
+
+        // an impassable origin can start a path but can never be entered
+        if (isImpassable(current)) return;
+
+        // every edge into the current cell costs the terrain cost of the current cell
+        int cost = terrainCost(current);
+        int r = current / sizeC;
+        int c = current - r * sizeC;
+        if (r + 1 < sizeR) relaxBackward(current, current + sizeC, cost);
+        if (r - 1 >= 0) relaxBackward(current, current - sizeC, cost);
+        if (c + 1 < sizeC) relaxBackward(current, current + 1, cost);
+        if (c - 1 >= 0) relaxBackward(current, current - 1, cost);
+    }
+
+    private void relaxForward(int current, int next) {
+        if (forwardSettled.get(next) || isImpassable(next)) return;
+
+        int newDistance = forwardDistance[current] + terrainCost(next);
+        if (newDistance < forwardDistance[next]) {
+            forwardDistance[next] = newDistance;
+            forwardParent[next] = current;
+            forwardReached.set(next);
+            forwardQueue.insertOrDecrease(next, newDistance);
+            meet(next);
+        }
+    }
+
+    private void relaxBackward(int current, int previous, int cost) {
+        if (backwardSettled.get(previous)) return;
+        // the backward search may only step on an impassable cell if it is an origin, where a path starts
+        if (isImpassable(previous) && !originCells.get(previous)) return;
+
+        int newDistance = backwardDistance[current] + cost;
+        if (newDistance < backwardDistance[previous]) {
+            backwardDistance[previous] = newDistance;
+            backwardParent[previous] = current;
+            backwardReached.set(previous);
+            backwardQueue.insertOrDecrease(previous, newDistance);
+            meet(previous);
+        }
+    }
+
+    /**
+     * Check whether the path through the cell is better than the best candidate so far.
+     */
+    private void meet(int cell) {
+        if (forwardDistance[cell] == INFINITY || backwardDistance[cell] == INFINITY) return;
+        long candidate = (long) forwardDistance[cell] + backwardDistance[cell];
+        if (candidate < bestDistance) {
+            bestDistance = (int) candidate;
+            meetingCell = cell;
+        }
+    }
+
+    private void reset() {
+        for (int i = forwardReached.nextSetBit(0); i >= 0; i = forwardReached.nextSetBit(i + 1)) {
+            forwardDistance[i] = INFINITY;
+            forwardParent[i] = NONE;
+        }
+        for (int i = backwardReached.nextSetBit(0); i >= 0; i = backwardReached.nextSetBit(i + 1)) {
+            backwardDistance[i] = INFINITY;
+            backwardParent[i] = NONE;
+        }
+        forwardReached.clear();
+        forwardSettled.clear();
+        forwardQueue.clear();
+        backwardReached.clear();
+        backwardSettled.clear();
+        backwardQueue.clear();
+        originCells.clear();
+        bestDistance = INFINITY;
+        meetingCell = NONE;
+    }
+
+    private boolean isImpassable(int cell) {
+        return map.isImpassable(cell);
+    }
+
+    private int terrainCost(int cell) {
+        return map.getTerrainCost(cell);
+    }
+
+    //
+    // Results of the last search
+    //
+
+    int getDistance() {
+        return bestDistance;
+    }
+
+    /**
+     * @return the cell indices from the origin to the meeting cell, and then on to the destination
+     */
+    int[] getPath() {
+        IntList path = new IntList();
+        for (int i = meetingCell; i != NONE; i = forwardParent[i]) {
+            path.add(i);
+        }
+        path.reverse(0);
+        for (int i = backwardParent[meetingCell]; i != NONE; i = backwardParent[i]) {
+            path.add(i);
+        }
+        return path.toArray();
+    }
+
+    /**
+     * @return the cell indices reached by either side of the last search
+     */
+    BitSet visitedCells() {
+        BitSet reached = (BitSet) forwardReached.clone();
+        reached.or(backwardReached);
+        return reached;
+    }
+
+
+} // end of class BidirectionalSearch
@@ -0,0 +1,185 @@
+package pathFinder;
+
+/**
+ * Dial's bucket queue over cell indices in the range [0, capacity).
+ * <p>
+ * Once a cell with key k has been polled, every key queued afterwards lies in [k, k + span],
+ * where span is the largest cost of one move (plus the largest rise of the heuristic for A*).
+ * So a circular array of span + 1 buckets, indexed by key modulo the bucket number, holds all the
+ * queued cells in key order. Each bucket is a doubly linked list threaded through int arrays,
+ * which makes insert and decrease-key O(1), and poll amortised O(1) as the minimum only moves forward.
+ * <p>
+ * Keys must never be below the key of the last polled cell. Before the first poll any keys can be
+ * inserted; if they are spread wider than the buckets, the buckets grow to cover them.
+ */
+class BucketQueue implements IntPriorityQueue {
+
+    private static final int NIL = -1;
+
+    // head[b] is the first cell of bucket b
+    private int[] head;
+    // next[cell] and previous[cell] link the cells of a bucket, previous is NIL for the head
+    private int[] next;
+    private int[] previous;
+    // key[cell] is the priority of the cell while it is queued
+    private int[] key;
+    private boolean[] queued;
+    private int size;
+
+    // no queued key is smaller than minimumKey, and none is larger than maximumKey
+    private int minimumKey;
+    private int maximumKey;
+    private boolean isPolled;
+
+    /**
+     * @param capacity number of cells
+     * @param span     the largest difference between the last polled key and any key queued after it
+     */
+    BucketQueue(int capacity, int span) {
+        this.head = newBuckets(span + 1);
+        this.next = new int[capacity];
+        this.previous = new int[capacity];
+        this.key = new int[capacity];
+        this.queued = new boolean[capacity];
+        this.size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int cell) {
+        return queued[cell];
+    }
+
+    @Override
+    public int getKey(int cell) {
+        return key[cell];
+    }
+
+    @Override
+    public void insertOrDecrease(int cell, int priority) {
+        if (queued[cell]) {
+            if (priority >= key[cell]) return;
+            unlink(cell);
+        } else {
+            queued[cell] = true;
+            size++;
+        }
+
+        if (size == 1 && !isPolled) {
+            minimumKey = priority;
+            maximumKey = priority;
+        } else {
+            if (priority < minimumKey) {
+                if (isPolled) {
+                    throw new IllegalArgumentException("Bucket queue keys must not go below the last polled key.");
+                }
+                minimumKey = priority;
+            }
+            if (priority > maximumKey) {
+                maximumKey = priority;
+            }
+        }
+
+        key[cell] = priority;
+        if ((long) maximumKey - minimumKey >= head.length) {
+            grow();
+        }
+        link(cell);
+    }
+
+    @Override
+    public int peekMin() {
+        // skip the empty buckets, the minimum never moves backwards
+        int bucket = Math.floorMod(minimumKey, head.length);
+        while (head[bucket] == NIL) {
+            minimumKey++;
+            bucket = bucket + 1 == head.length ? 0 : bucket + 1;
+        }
+        return head[bucket];
+    }
+
+    @Override
+    public int pollMin() {
+        int min = peekMin();
+        unlink(min);
+        queued[min] = false;
+        size--;
+        isPolled = true;
+        return min;
+    }
+
+    /**
+     * Empty the queue. Every bucket is visited, so this is O(size + span) rather than O(capacity).
+     */
+    @Override
+    public void clear() {
+        for (int b = 0; b < head.length; b++) {
+            for (int cell = head[b]; cell != NIL; cell = next[cell]) {
+                queued[cell] = false;
+            }
+            head[b] = NIL;
+        }
+        size = 0;
+        isPolled = false;
+    }
+
+    private void link(int cell) {
+        int bucket = Math.floorMod(key[cell], head.length);
+        next[cell] = head[bucket];
+        previous[cell] = NIL;
+        if (head[bucket] != NIL) {
+            previous[head[bucket]] = cell;
+        }
+        head[bucket] = cell;
+    }
+
+    private void unlink(int cell) {
+        if (previous[cell] == NIL) {
+            head[Math.floorMod(key[cell], head.length)] = next[cell];
+        } else {
+            next[previous[cell]] = next[cell];
+        }
+        if (next[cell] != NIL) {
+            previous[next[cell]] = previous[cell];
+        }
+    }
+
+    /**
+     * Double the buckets until they cover [minimumKey, maximumKey], and put every linked cell back.
+     */
+    private void grow() {
+        int[] oldHead = head;
+        int bucketNum = oldHead.length;
+        while (bucketNum <= (long) maximumKey - minimumKey) {
+            bucketNum *= 2;
+        }
+        head = newBuckets(bucketNum);
+
+        for (int b = 0; b < oldHead.length; b++) {
+            int cell = oldHead[b];
+            while (cell != NIL) {
+                int following = next[cell];
+                link(cell);
+                cell = following;
+            }
+        }
+    }
+
+    private static int[] newBuckets(int bucketNum) {
+        int[] buckets = new int[bucketNum];
+        for (int b = 0; b < bucketNum; b++) {
+            buckets[b] = NIL;
+        }
+        return buckets;
+    }
+
+} // end of class BucketQueue
@@ -0,0 +1,593 @@
+package pathFinder;
+
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * Hierarchical path-finding (HPA*) on cell indices.
+ * <p>
+ * The map is cut into square clusters of a fixed size. Along the border of two adjacent clusters,
+ * every maximal run of crossings where both sides are passable, and where the terrain costs on both sides
+ * stay the same, is an entrance. A short entrance gets one transition in its middle, and a long one gets
+ * a transition at each end. A transition is a pair of cells facing each other across the border, and each
+ * cell is a node of the abstract graph. Nodes are joined by inter edges across the border, which cost the
+ * terrain cost of the cell entered, and by intra edges between every two nodes of the same cluster,
+ * which cost the shortest distance between them without leaving the cluster. Only these distances are
+ * precomputed, not the paths themselves.
+ * <p>
+ * A query connects the origins and destinations to the nodes of their own clusters with small searches
+ * bounded by the cluster. An impassable origin can still be left, and on a cluster border it can be left
+ * into the next cluster as well, so its passable neighbours there are connected to the nodes of their
+ * clusters too. The query then runs Dijkstra on the abstract graph, and refines only the edges of the winning
+ * abstract path back into cells. As paths may only turn at transitions, the distance is close to, but not
+ * always exactly, the shortest one.
+ */
+class ClusterAbstraction {
+
+    static final int INFINITY = GridSearch.INFINITY;
+    static final int NONE = GridSearch.NONE;
+
+    // an entrance this wide or wider gets a transition at each end instead of one in the middle
+    private static final int WIDE_ENTRANCE = 6;
+
+    private PathMap map;
+    private int sizeR;
+    private int sizeC;
+    private int clusterSize;
+    private int clusterRows;
+    private int clusterCols;
+
+    // nodeCell[node] is the cell of the node, and clusterNodes[cluster] the nodes of the cluster
+    private int[] nodeCell;
+    private int[][] clusterNodes;
+
+    // abstract edges of node u are edgeTarget[edgeStart[u] .. edgeStart[u + 1]) with the same edgeCost
+    private int[] edgeStart;
+    private int[] edgeTarget;
+    private int[] edgeCost;
+
+    // abstract search state, reset through the reached nodes only
+    private int[] distance;
+    private int[] parent;
+    private int[] exitDistance;
+    private int[] exitCell;
+    private int[] entryCell;
+    // the origin the node is reached from, which is not its entry cell when the origin is left across a border
+    private int[] entryOrigin;
+    private BitSet reached;
+    private BitSet settled;
+    private IndexedMinHeap queue;
+
+    // the best path found so far by the current query: through the nodes, ending at bestNode,
+    // or straight inside one cluster from directStart, which is left from directOrigin
+    private int best;
+    private int bestNode;
+    private int directOrigin;
+    private int directStart;
+    private int directDestination;
+
+    // search bounded by one cluster, on local indices (r - r0) * cols + (c - c0)
+    private int[] localDistance;
+    private int[] localParent;
+    private IndexedMinHeap localQueue;
+    private int localR0;
+    private int localC0;
+    private int localRows;
+    private int localCols;
+
+    // result of the last query
+    private int foundDistance;
+    private int[] foundPath;
+    // cells visited by the last query, kept between queries and only cleared where the query went
+    private BitSet visited;
+    // the clusters searched by the last query, in which visited has to be cleared
+    private IntList searchedClusters;
+
+    /**
+     * Build the clusters, the transitions and the abstract graph of the map.
+     *
+     * @param map         the map to search
+     * @param clusterSize the number of rows and columns of a cluster
+     */
+    ClusterAbstraction(PathMap map, int clusterSize) {
+        if (clusterSize < 1) {
+            throw new IllegalArgumentException("Cluster size must be positive.");
+        }
+        this.map = map;
+        this.sizeR = map.sizeR;
+        this.sizeC = map.sizeC;
+        this.clusterSize = clusterSize;
+        this.clusterRows = (sizeR + clusterSize - 1) / clusterSize;
+        this.clusterCols = (sizeC + clusterSize - 1) / clusterSize;
+
+        this.searchedClusters = new IntList();
+
+        int localCellNum = clusterSize * clusterSize;
+        this.localDistance = new int[localCellNum];
+        this.localParent = new int[localCellNum];
+        this.localQueue = new IndexedMinHeap(localCellNum);
+        Arrays.fill(localDistance, INFINITY);
+
+        buildGraph();
+
+        int nodeNum = nodeCell.length;
+        this.distance = new int[nodeNum];
+        this.parent = new int[nodeNum];
+        this.exitDistance = new int[nodeNum];
+        this.exitCell = new int[nodeNum];
+        this.entryCell = new int[nodeNum];
+        this.entryOrigin = new int[nodeNum];
+        this.reached = new BitSet(nodeNum);
+        this.settled = new BitSet(nodeNum);
+        this.queue = new IndexedMinHeap(nodeNum);
+        Arrays.fill(distance, INFINITY);
+        Arrays.fill(parent, NONE);
+        Arrays.fill(exitDistance, INFINITY);
+        // not sized to the map, so that a copy of it only spans the cells visited
+        this.visited = new BitSet();
+    } // end of ClusterAbstraction()
+
+    //
+    // Preprocessing
+    //
+
+    private void buildGraph() {
+        Map<Integer, Integer> nodeOf = new HashMap<>();
+        List<Integer> cells = new ArrayList<>();
+        List<List<Integer>> nodesOfCluster = new ArrayList<>();
+        for (int k = 0; k < clusterRows * clusterCols; k++) {
+            nodesOfCluster.add(new ArrayList<>());
+        }
+        // inter edges as (from, to) pairs, the cost is the terrain cost of the cell of "to"
+        List<int[]> interEdges = new ArrayList<>();
+
+        // borders between a cluster and the one to its right, and between a cluster and the one below it
+        for (int cr = 0; cr < clusterRows; cr++) {
+            for (int cc = 0; cc < clusterCols; cc++) {
+                int r0 = cr * clusterSize;
+                int c0 = cc * clusterSize;
+                if (c0 + clusterSize < sizeC) {
+                    int c = c0 + clusterSize - 1;
+                    addEntrances(r0, c, 1, 0, 0, 1, Math.min(clusterSize, sizeR - r0),
+                            nodeOf, cells, nodesOfCluster, interEdges);
+                }
+                if (r0 + clusterSize < sizeR) {
+                    int r = r0 + clusterSize - 1;
+                    addEntrances(r, c0, 0, 1, 1, 0, Math.min(clusterSize, sizeC - c0),
+                            nodeOf, cells, nodesOfCluster, interEdges);
+                }
+            }
+        }
+
+        int nodeNum = cells.size();
+        this.nodeCell = new int[nodeNum];
+        for (int u = 0; u < nodeNum; u++) {
+            nodeCell[u] = cells.get(u);
+        }
+        this.clusterNodes = new int[nodesOfCluster.size()][];
+        for (int k = 0; k < clusterNodes.length; k++) {
+            List<Integer> nodes = nodesOfCluster.get(k);
+            clusterNodes[k] = new int[nodes.size()];
+            for (int i = 0; i < nodes.size(); i++) {
+                clusterNodes[k][i] = nodes.get(i);
+            }
+        }
+
+        // edges of every node, inter edges first and then the intra edges found by one bounded search per node
+        List<List<int[]>> edges = new ArrayList<>();
+        for (int u = 0; u < nodeNum; u++) {
+            edges.add(new ArrayList<>());
+        }
+        for (int[] edge : interEdges) {
+            edges.get(edge[0]).add(new int[]{edge[1], terrainCost(nodeCell[edge[1]])});
+        }
+        for (int[] nodes : clusterNodes) {
+            for (int u : nodes) {
+                localSearch(nodeCell[u], false);
+                for (int v : nodes) {
+                    int d = localDistanceTo(nodeCell[v]);
+                    if (v != u && d != INFINITY) {
+                        edges.get(u).add(new int[]{v, d});
+                    }
+                }
+            }
+        }
+
+        this.edgeStart = new int[nodeNum + 1];
+        for (int u = 0; u < nodeNum; u++) {
+            edgeStart[u + 1] = edgeStart[u] + edges.get(u).size();
+        }
+        this.edgeTarget = new int[edgeStart[nodeNum]];
+        this.edgeCost = new int[edgeStart[nodeNum]];
+        for (int u = 0; u < nodeNum; u++) {
+            int e = edgeStart[u];
+            for (int[] edge : edges.get(u)) {
+                edgeTarget[e] = edge[0];
+                edgeCost[e] = edge[1];
+                e++;
+            }
+        }
+    } // end of buildGraph()
+
+    /**
+     * Walk along one border and add the transitions of its entrances.
+     *
+     * @param r      row of the first cell on the near side of the border
+     * @param c      column of the first cell on the near side of the border
+     * @param dr     row step along the border
+     * @param dc     column step along the border
+     * @param ar     row step across the border
+     * @param ac     column step across the border
+     * @param length number of cells along the border
+     */
+    private void addEntrances(int r, int c, int dr, int dc, int ar, int ac, int length,
+                              Map<Integer, Integer> nodeOf, List<Integer> cells,
+                              List<List<Integer>> nodesOfCluster, List<int[]> interEdges) {
+        int start = 0;
+        while (start < length) {
+            if (!isOpen(r + start * dr, c + start * dc, ar, ac)) {
+                start++;
+                continue;
+            }
+            // extend the entrance while the crossings are open and cost the same
+            int end = start + 1;
+            while (end < length && isOpen(r + end * dr, c + end * dc, ar, ac)
+                    && sameCrossing(r + start * dr, c + start * dc, r + end * dr, c + end * dc, ar, ac)) {
+                end++;
+            }
+
+            int width = end - start;
+            if (width < WIDE_ENTRANCE) {
+                int middle = start + width / 2;
+                addTransition(r + middle * dr, c + middle * dc, ar, ac, nodeOf, cells, nodesOfCluster, interEdges);
+            } else {
+                addTransition(r + start * dr, c + start * dc, ar, ac, nodeOf, cells, nodesOfCluster, interEdges);
+                addTransition(r + (end - 1) * dr, c + (end - 1) * dc, ar, ac, nodeOf, cells, nodesOfCluster, interEdges);
+            }
+            start = end;
+        }
+    }
+
+    private boolean isOpen(int r, int c, int ar, int ac) {
+        return map.isPassable(r, c) && map.isPassable(r + ar, c + ac);
+    }
+
+    private boolean sameCrossing(int r1, int c1, int r2, int c2, int ar, int ac) {
+        return terrainCost(r1 * sizeC + c1) == terrainCost(r2 * sizeC + c2)
+                && terrainCost((r1 + ar) * sizeC + c1 + ac) == terrainCost((r2 + ar) * sizeC + c2 + ac);
+    }
+
+    private void addTransition(int r, int c, int ar, int ac, Map<Integer, Integer> nodeOf, List<Integer> cells,
+                               List<List<Integer>> nodesOfCluster, List<int[]> interEdges) {
+        int near = node(r * sizeC + c, nodeOf, cells, nodesOfCluster);
+        int far = node((r + ar) * sizeC + c + ac, nodeOf, cells, nodesOfCluster);
+        interEdges.add(new int[]{near, far});
+        interEdges.add(new int[]{far, near});
+    }
+
+    private int node(int cell, Map<Integer, Integer> nodeOf, List<Integer> cells, List<List<Integer>> nodesOfCluster) {
+        Integer node = nodeOf.get(cell);
+        if (node == null) {
+            node = cells.size();
+            nodeOf.put(cell, node);
+            cells.add(cell);
+            nodesOfCluster.get(clusterOf(cell)).add(node);
+        }
+        return node;
+    }
+
+    //
+    // Queries
+    //
+
+    /**
+     * Find a path from any of the origins to any of the destinations.
+     *
+     * @param origins      the origin cell indices
+     * @param destinations the destination cell indices
+     * @return true if a path has been found
+     */
+    boolean search(int[] origins, int[] destinations) {
+        reset();
+
+        // leave every origin for the nodes of its cluster, or go straight to a destination in the same cluster
+        for (int origin : origins) {
+            leaveFrom(origin, 0, origin, destinations);
+            if (!isImpassable(origin)) continue;
+            // an impassable origin is not a transition, so the clusters next to it are entered straight from it
+            int r = origin / sizeC;
+            int c = origin - r * sizeC;
+            if (r + 1 < sizeR) leaveAcross(origin, origin + sizeC, destinations);
+            if (r - 1 >= 0) leaveAcross(origin, origin - sizeC, destinations);
+            if (c + 1 < sizeC) leaveAcross(origin, origin + 1, destinations);
+            if (c - 1 >= 0) leaveAcross(origin, origin - 1, destinations);
+        }
+
+        // reach every destination from the nodes of its cluster, searching backwards from the destination
+        for (int destination : destinations) {
+            if (isImpassable(destination)) continue;
+            localSearch(destination, true);
+            for (int u : clusterNodes[clusterOf(destination)]) {
+                int d = localDistanceTo(nodeCell[u]);
+                if (d < exitDistance[u]) {
+                    exitDistance[u] = d;
+                    exitCell[u] = destination;
+                    reached.set(u);
+                }
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int u = queue.pollMin();
+            settled.set(u);
+            visited.set(nodeCell[u]);
+            if (distance[u] >= best) break;
+
+            if (exitDistance[u] != INFINITY && (long) distance[u] + exitDistance[u] < best) {
+                best = distance[u] + exitDistance[u];
+                bestNode = u;
+            }
+            for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                int v = edgeTarget[e];
+                if (settled.get(v)) continue;
+                int newDistance = distance[u] + edgeCost[e];
+                if (newDistance < distance[v]) {
+                    distance[v] = newDistance;
+                    parent[v] = u;
+                    reached.set(v);
+                    queue.insertOrDecrease(v, newDistance);
+                }
+            }
+        }
+
+        if (best == INFINITY) {
+            return false;
+        }
+        foundDistance = best;
+        foundPath = bestNode == NONE ? refineDirect(directOrigin, directStart, directDestination) : refine(bestNode);
+        return true;
+    } // end of search()
+
+    /**
+     * Enter the cluster of a passable neighbour of an impassable origin, when it is another cluster than the
+     * one of the origin, whose own search already reaches it.
+     */
+    private void leaveAcross(int origin, int neighbour, int[] destinations) {
+        if (isImpassable(neighbour) || clusterOf(neighbour) == clusterOf(origin)) return;
+        leaveFrom(neighbour, terrainCost(neighbour), origin, destinations);
+    }
+
+    /**
+     * Reach the nodes of the cluster of the start cell, and the destinations in it, from the start cell.
+     *
+     * @param start         the origin, or the neighbour an impassable origin is left into
+     * @param startDistance the distance from the origin to the start cell
+     * @param origin        the origin
+     * @param destinations  the destination cell indices
+     */
+    private void leaveFrom(int start, int startDistance, int origin, int[] destinations) {
+        localSearch(start, false);
+        for (int u : clusterNodes[clusterOf(start)]) {
+            int d = localDistanceTo(nodeCell[u]);
+            if (d != INFINITY && startDistance + d < distance[u]) {
+                distance[u] = startDistance + d;
+                entryCell[u] = start;
+                entryOrigin[u] = origin;
+                reached.set(u);
+                queue.insertOrDecrease(u, distance[u]);
+            }
+        }
+        for (int destination : destinations) {
+            if (clusterOf(destination) != clusterOf(start)) continue;
+            int d = localDistanceTo(destination);
+            if (d != INFINITY && startDistance + d < best) {
+                best = startDistance + d;
+                directOrigin = origin;
+                directStart = start;
+                directDestination = destination;
+            }
+        }
+    }
+
+    /**
+     * Turn the abstract path ending at the node into cells, one bounded search per intra edge.
+     */
+    private int[] refine(int last) {
+        IntList nodes = new IntList();
+        for (int u = last; u != NONE; u = parent[u]) {
+            nodes.add(u);
+        }
+        nodes.reverse(0);
+
+        int first = nodes.get(0);
+        IntList path = new IntList();
+        if (entryOrigin[first] != entryCell[first]) {
+            // the impassable origin and the step out of its cluster
+            path.add(entryOrigin[first]);
+            path.add(entryCell[first]);
+        }
+        appendLocalPath(path, entryCell[first], nodeCell[first]);
+        for (int i = 1; i < nodes.size(); i++) {
+            int from = nodeCell[nodes.get(i - 1)];
+            int to = nodeCell[nodes.get(i)];
+            if (clusterOf(from) == clusterOf(to)) {
+                appendLocalPath(path, from, to);
+            } else {
+                // an inter edge is a single move across the border
+                path.add(to);
+            }
+        }
+        appendLocalPath(path, nodeCell[last], exitCell[last]);
+        return path.toArray();
+    }
+
+    private int[] refineDirect(int origin, int start, int destination) {
+        IntList path = new IntList();
+        if (origin != start) {
+            path.add(origin);
+            path.add(start);
+        }
+        appendLocalPath(path, start, destination);
+        return path.toArray();
+    }
+
+    /**
+     * Search inside the cluster of the cells and append the path from one to the other, without its first cell
+     * unless the path is still empty.
+     */
+    private void appendLocalPath(IntList path, int from, int to) {
+        localSearch(from, false);
+        boolean isEmpty = path.size() == 0;
+        int start = path.size();
+        // the segment is walked back from "to", and its first cell is left out once the path has it already
+        for (int local = toLocal(to); local != NONE && (isEmpty || localParent[local] != NONE); local = localParent[local]) {
+            path.add(toCell(local));
+        }
+        path.reverse(start);
+    }
+
+    private void reset() {
+        for (int u = reached.nextSetBit(0); u >= 0; u = reached.nextSetBit(u + 1)) {
+            distance[u] = INFINITY;
+            exitDistance[u] = INFINITY;
+            parent[u] = NONE;
+        }
+        // the cells visited are the cells of the nodes settled and of the clusters searched
+        for (int u = settled.nextSetBit(0); u >= 0; u = settled.nextSetBit(u + 1)) {
+            visited.clear(nodeCell[u]);
+        }
+        for (int i = 0; i < searchedClusters.size(); i++) {
+            clearCluster(searchedClusters.get(i));
+        }
+        searchedClusters.clear();
+        reached.clear();
+        settled.clear();
+        queue.clear();
+        best = INFINITY;
+        bestNode = NONE;
+        directOrigin = NONE;
+        directStart = NONE;
+        directDestination = NONE;
+        foundDistance = INFINITY;
+        foundPath = new int[0];
+    }
+
+    private void clearCluster(int cluster) {
+        int r0 = cluster / clusterCols * clusterSize;
+        int c0 = cluster % clusterCols * clusterSize;
+        int rows = Math.min(clusterSize, sizeR - r0);
+        int cols = Math.min(clusterSize, sizeC - c0);
+        for (int r = r0; r < r0 + rows; r++) {
+            visited.clear(r * sizeC + c0, r * sizeC + c0 + cols);
+        }
+    }
+
+    //
+    // Search bounded by one cluster
+    //
+
+    /**
+     * Dijkstra from the cell without leaving its cluster. A forward search gives the distance from the cell
+     * to every cell of the cluster. A backward search gives the distance from every cell of the cluster to the
+     * cell: it charges the cost of the cell it leaves and never steps onto an impassable cell.
+     */
+    private void localSearch(int source, boolean backward) {
+        int cluster = clusterOf(source);
+        int searchedNum = searchedClusters.size();
+        if (visited != null && (searchedNum == 0 || searchedClusters.get(searchedNum - 1) != cluster)) {
+            searchedClusters.add(cluster);
+        }
+        localR0 = cluster / clusterCols * clusterSize;
+        localC0 = cluster % clusterCols * clusterSize;
+        localRows = Math.min(clusterSize, sizeR - localR0);
+        localCols = Math.min(clusterSize, sizeC - localC0);
+        Arrays.fill(localDistance, INFINITY);
+        localQueue.clear();
+
+        int start = toLocal(source);
+        localDistance[start] = 0;
+        localParent[start] = NONE;
+        localQueue.insertOrDecrease(start, 0);
+        while (!localQueue.isEmpty()) {
+            int current = localQueue.pollMin();
+            int cell = toCell(current);
+            if (visited != null) visited.set(cell);
+            // an impassable origin can be left but not entered, so nothing leads into it backwards
+            if (backward && isImpassable(cell)) continue;
+
+            int r = current / localCols;
+            int c = current - r * localCols;
+            if (r + 1 < localRows) localRelax(current, current + localCols, backward);
+            if (r - 1 >= 0) localRelax(current, current - localCols, backward);
+            if (c + 1 < localCols) localRelax(current, current + 1, backward);
+            if (c - 1 >= 0) localRelax(current, current - 1, backward);
+        }
+    }
+
+    private void localRelax(int current, int next, boolean backward) {
+        int nextCell = toCell(next);
+        if (isImpassable(nextCell)) return;
+        int cost = terrainCost(backward ? toCell(current) : nextCell);
+        int newDistance = localDistance[current] + cost;
+        if (newDistance < localDistance[next]) {
+            localDistance[next] = newDistance;
+            localParent[next] = current;
+            localQueue.insertOrDecrease(next, newDistance);
+        }
+    }
+
+    private int localDistanceTo(int cell) {
+        return localDistance[toLocal(cell)];
+    }
+
+    private int toLocal(int cell) {
+        return (cell / sizeC - localR0) * localCols + cell % sizeC - localC0;
+    }
+
+    private int toCell(int local) {
+        return (localR0 + local / localCols) * sizeC + localC0 + local % localCols;
+    }
+
+    private int clusterOf(int cell) {
+        return cell / sizeC / clusterSize * clusterCols + cell % sizeC / clusterSize;
+    }
+
+    private boolean isImpassable(int cell) {
+        return map.isImpassable(cell);
+    }
+
+    private int terrainCost(int cell) {
+        return map.getTerrainCost(cell);
+    }
+
+
+    //
+    // Results of the last query and size of the abstraction
+    //
+
+    int getDistance() {
+        return foundDistance;
+    }
+
+    int[] getPath() {
+        return foundPath;
+    }
+
+    /**
+     * @return the cells of the nodes settled and the cells reached by the bounded searches of the last query,
+     * a copy which only spans the words up to the last cell visited
+     */
+    BitSet visitedCells() {
+        return (BitSet) visited.clone();
+    }
+
+    int getNodeNum() {
+        return nodeCell.length;
+    }
+
+    int getEdgeNum() {
+        return edgeTarget.length;
+    }
+
+} // end of class ClusterAbstraction
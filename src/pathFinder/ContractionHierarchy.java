@@ -0,0 +1,587 @@
+package pathFinder;
+
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * Contraction Hierarchy of the grid graph of a map, on cell indices.
+ * <p>
+ * Every cell is a node, and there is an edge from a cell to each passable adjacent cell which costs the
+ * terrain cost of the cell entered, so impassable cells can be left (as origins) but never entered.
+ * Preprocessing contracts the nodes one by one, cheapest first by edge difference: a node is removed and,
+ * for every pair of remaining neighbours u and w whose shortest path goes through it, a shortcut edge from u
+ * to w is added. A bounded witness search from u decides whether a path avoiding the node is as short.
+ * The contraction order is the rank of a node, and shortcuts always join nodes of higher rank than the one skipped.
+ * <p>
+ * A query is a bidirectional Dijkstra where the forward search from the origins only follows edges up
+ * to higher ranks, and the backward search from the destinations only follows edges coming down from higher
+ * ranks. Both searches stay tiny, and the shortest path is the best meeting node. A node that is reached more
+ * cheaply from above is stalled rather than expanded. Shortcuts remember the node
+ * they skip, and are unpacked recursively into the moves of the path.
+ */
+class ContractionHierarchy {
+
+    static final int INFINITY = GridSearch.INFINITY;
+    static final int NONE = GridSearch.NONE;
+
+    // a witness search gives up after settling this many nodes, which only ever adds needless shortcuts;
+    // the priority of a node is only an estimate, so its searches give up much earlier
+    private static final int WITNESS_SETTLED_LIMIT = 200;
+    private static final int ESTIMATE_SETTLED_LIMIT = 20;
+
+    private int sizeC;
+    private int nodeNum;
+
+    // upward edges, from node u to higher node upTo[e], for e in [upStart[u], upStart[u + 1])
+    private int[] upStart;
+    private int[] upTo;
+    private int[] upCost;
+    private int[] upMiddle;
+
+    // downward edges into node u, from higher node downFrom[e], for e in [downStart[u], downStart[u + 1])
+    private int[] downStart;
+    private int[] downFrom;
+    private int[] downCost;
+    private int[] downMiddle;
+
+    // query state, reset through the reached nodes only; parent edges index the up or down edge arrays
+    private int[] forwardDistance;
+    private int[] forwardEdge;
+    private BitSet forwardReached;
+    private IndexedMinHeap forwardQueue;
+    private int[] backwardDistance;
+    private int[] backwardEdge;
+    private BitSet backwardReached;
+    private IndexedMinHeap backwardQueue;
+    private int bestDistance;
+    private int meetingNode;
+
+    /**
+     * Contract every node of the map.
+     *
+     * @param map the map, which must not change while the hierarchy is in use
+     */
+    ContractionHierarchy(PathMap map) {
+        this.sizeC = map.sizeC;
+        this.nodeNum = map.sizeR * map.sizeC;
+
+        new Builder(map).contractAll();
+
+        this.forwardDistance = new int[nodeNum];
+        this.forwardEdge = new int[nodeNum];
+        this.forwardReached = new BitSet(nodeNum);
+        this.forwardQueue = new IndexedMinHeap(nodeNum);
+        this.backwardDistance = new int[nodeNum];
+        this.backwardEdge = new int[nodeNum];
+        this.backwardReached = new BitSet(nodeNum);
+        this.backwardQueue = new IndexedMinHeap(nodeNum);
+        Arrays.fill(forwardDistance, INFINITY);
+        Arrays.fill(backwardDistance, INFINITY);
+    } // end of ContractionHierarchy()
+
+    //
+    // Preprocessing
+    //
+
+    /**
+     * The graph while it is being contracted. The edges of a node are kept as (node, cost, middle) triples,
+     * where middle is the contracted node a shortcut skips, or NONE for a move between adjacent cells.
+     */
+    private class Builder {
+
+        private int[][] out;
+        private int[] outNum;
+        private int[][] in;
+        private int[] inNum;
+        // number of contracted neighbours, which spreads the contraction evenly over the map
+        private int[] deletedNeighbours;
+
+        // upward and downward edges of every node as triples, recorded when it is contracted
+        private int[][] up;
+        private int[][] down;
+
+        // witness search state
+        private int[] witnessDistance;
+        private IntList witnessReached;
+        private IndexedMinHeap witnessQueue;
+
+        Builder(PathMap map) {
+            this.out = new int[nodeNum][];
+            this.outNum = new int[nodeNum];
+            this.in = new int[nodeNum][];
+            this.inNum = new int[nodeNum];
+            this.deletedNeighbours = new int[nodeNum];
+            this.up = new int[nodeNum][];
+            this.down = new int[nodeNum][];
+            this.witnessDistance = new int[nodeNum];
+            this.witnessReached = new IntList();
+            this.witnessQueue = new IndexedMinHeap(nodeNum);
+            Arrays.fill(witnessDistance, INFINITY);
+
+            for (int u = 0; u < nodeNum; u++) {
+                out[u] = new int[12];
+                in[u] = new int[12];
+            }
+            for (int r = 0; r < map.sizeR; r++) {
+                for (int c = 0; c < map.sizeC; c++) {
+                    int u = r * sizeC + c;
+                    // coordinate above, below, to the right and to the left
+                    if (map.isPassable(r + 1, c)) addEdge(u, u + sizeC, map.getTerrainCost(u + sizeC), NONE);
+                    if (map.isPassable(r - 1, c)) addEdge(u, u - sizeC, map.getTerrainCost(u - sizeC), NONE);
+                    if (map.isPassable(r, c + 1)) addEdge(u, u + 1, map.getTerrainCost(u + 1), NONE);
+                    if (map.isPassable(r, c - 1)) addEdge(u, u - 1, map.getTerrainCost(u - 1), NONE);
+                }
+            }
+        }
+
+        void contractAll() {
+            IndexedMinHeap order = new IndexedMinHeap(nodeNum);
+            for (int v = 0; v < nodeNum; v++) {
+                order.insertOrDecrease(v, priority(v));
+            }
+
+            IntList neighbours = new IntList();
+            while (!order.isEmpty()) {
+                // lazy update: the priority may have gone up since it was queued
+                int v = order.pollMin();
+                int p = priority(v);
+                if (!order.isEmpty() && p > order.getKey(order.peekMin())) {
+                    order.insertOrDecrease(v, p);
+                    continue;
+                }
+
+                contract(v, false);
+
+                // the neighbours are updated once each, after the node is gone
+                neighbours.clear();
+                for (int i = 0; i < outNum[v]; i++) {
+                    neighbours.add(out[v][3 * i]);
+                }
+                for (int i = 0; i < inNum[v]; i++) {
+                    if (findEdge(out[v], outNum[v], in[v][3 * i]) == NONE) neighbours.add(in[v][3 * i]);
+                }
+                removeNode(v);
+                for (int i = 0; i < neighbours.size(); i++) {
+                    int u = neighbours.get(i);
+                    deletedNeighbours[u]++;
+                    order.changeKey(u, priority(u));
+                }
+            }
+
+            buildUpwardGraph();
+        }
+
+        /**
+         * @return twice the edge difference of contracting the node, plus its contracted neighbours
+         */
+        private int priority(int v) {
+            return 2 * (contract(v, true) - outNum[v] - inNum[v]) + deletedNeighbours[v];
+        }
+
+        /**
+         * Add the shortcuts needed to remove the node, or only count them.
+         *
+         * @param simulate true to count the shortcuts without adding them
+         * @return the number of shortcuts
+         */
+        private int contract(int v, boolean simulate) {
+            int shortcuts = 0;
+            int maxOut = 0;
+            for (int j = 0; j < outNum[v]; j++) {
+                maxOut = Math.max(maxOut, out[v][3 * j + 1]);
+            }
+
+            for (int i = 0; i < inNum[v]; i++) {
+                int u = in[v][3 * i];
+                int costIn = in[v][3 * i + 1];
+                witnessSearch(u, v, costIn + maxOut, simulate ? ESTIMATE_SETTLED_LIMIT : WITNESS_SETTLED_LIMIT);
+                for (int j = 0; j < outNum[v]; j++) {
+                    int w = out[v][3 * j];
+                    if (w == u) continue;
+                    int viaCost = costIn + out[v][3 * j + 1];
+                    if (witnessDistance[w] <= viaCost) continue;
+                    shortcuts++;
+                    if (!simulate) {
+                        addEdge(u, w, viaCost, v);
+                    }
+                }
+            }
+
+            if (!simulate) {
+                up[v] = Arrays.copyOf(out[v], 3 * outNum[v]);
+                down[v] = Arrays.copyOf(in[v], 3 * inNum[v]);
+            }
+            return shortcuts;
+        }
+
+        /**
+         * Dijkstra from u over the remaining nodes except v, up to the given distance.
+         */
+        private void witnessSearch(int u, int v, int limit, int settledLimit) {
+            for (int i = 0; i < witnessReached.size(); i++) {
+                witnessDistance[witnessReached.get(i)] = INFINITY;
+            }
+            witnessReached.clear();
+            witnessQueue.clear();
+
+            witnessDistance[u] = 0;
+            witnessReached.add(u);
+            witnessQueue.insertOrDecrease(u, 0);
+            int settledNum = 0;
+            while (!witnessQueue.isEmpty() && settledNum < settledLimit) {
+                int x = witnessQueue.pollMin();
+                settledNum++;
+                if (witnessDistance[x] > limit) break;
+                for (int i = 0; i < outNum[x]; i++) {
+                    int y = out[x][3 * i];
+                    if (y == v) continue;
+                    int newDistance = witnessDistance[x] + out[x][3 * i + 1];
+                    if (newDistance < witnessDistance[y]) {
+                        if (witnessDistance[y] == INFINITY) witnessReached.add(y);
+                        witnessDistance[y] = newDistance;
+                        witnessQueue.insertOrDecrease(y, newDistance);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Add the edge from u to w, or lower the cost of the existing one.
+         */
+        private void addEdge(int u, int w, int cost, int middle) {
+            int i = findEdge(out[u], outNum[u], w);
+            if (i == NONE) {
+                out[u] = append(out[u], outNum[u]++, w, cost, middle);
+                in[w] = append(in[w], inNum[w]++, u, cost, middle);
+            } else if (cost < out[u][3 * i + 1]) {
+                int j = findEdge(in[w], inNum[w], u);
+                out[u][3 * i + 1] = cost;
+                out[u][3 * i + 2] = middle;
+                in[w][3 * j + 1] = cost;
+                in[w][3 * j + 2] = middle;
+            }
+        }
+
+        /**
+         * @return the position of the edge to or from the node among the first num triples, or NONE
+         */
+        private int findEdge(int[] edges, int num, int node) {
+            for (int i = 0; i < num; i++) {
+                if (edges[3 * i] == node) return i;
+            }
+            return NONE;
+        }
+
+        private int[] append(int[] edges, int index, int node, int cost, int middle) {
+            if (3 * index + 3 > edges.length) {
+                edges = Arrays.copyOf(edges, edges.length * 2);
+            }
+            edges[3 * index] = node;
+            edges[3 * index + 1] = cost;
+            edges[3 * index + 2] = middle;
+            return edges;
+        }
+
+        /**
+         * Take the contracted node out of the edge lists of its neighbours.
+         */
+        private void removeNode(int v) {
+            for (int i = 0; i < outNum[v]; i++) {
+                int w = out[v][3 * i];
+                inNum[w] = removeEdge(in[w], inNum[w], v);
+            }
+            for (int i = 0; i < inNum[v]; i++) {
+                int u = in[v][3 * i];
+                outNum[u] = removeEdge(out[u], outNum[u], v);
+            }
+            out[v] = null;
+            in[v] = null;
+        }
+
+        private int removeEdge(int[] edges, int num, int node) {
+            int i = findEdge(edges, num, node);
+            if (i == NONE) return num;
+            num--;
+            System.arraycopy(edges, 3 * num, edges, 3 * i, 3);
+            return num;
+        }
+
+        /**
+         * Pack the edges recorded at contraction time into the query arrays.
+         */
+        private void buildUpwardGraph() {
+            upStart = new int[nodeNum + 1];
+            downStart = new int[nodeNum + 1];
+            for (int u = 0; u < nodeNum; u++) {
+                upStart[u + 1] = upStart[u] + up[u].length / 3;
+                downStart[u + 1] = downStart[u] + down[u].length / 3;
+            }
+            upTo = new int[upStart[nodeNum]];
+            upCost = new int[upStart[nodeNum]];
+            upMiddle = new int[upStart[nodeNum]];
+            downFrom = new int[downStart[nodeNum]];
+            downCost = new int[downStart[nodeNum]];
+            downMiddle = new int[downStart[nodeNum]];
+            for (int u = 0; u < nodeNum; u++) {
+                for (int i = 0; i < up[u].length / 3; i++) {
+                    upTo[upStart[u] + i] = up[u][3 * i];
+                    upCost[upStart[u] + i] = up[u][3 * i + 1];
+                    upMiddle[upStart[u] + i] = up[u][3 * i + 2];
+                }
+                for (int i = 0; i < down[u].length / 3; i++) {
+                    downFrom[downStart[u] + i] = down[u][3 * i];
+                    downCost[downStart[u] + i] = down[u][3 * i + 1];
+                    downMiddle[downStart[u] + i] = down[u][3 * i + 2];
+                }
+                up[u] = null;
+                down[u] = null;
+            }
+        }
+
+    } // end of class Builder
+
+    //
+    // Queries
+    //
+
+    /**
+     * Find the shortest path from any of the origins to any of the destinations.
+     *
+     * @param origins      the origin cell indices
+     * @param destinations the destination cell indices
+     * @return true if a path has been found
+     */
+    boolean search(int[] origins, int[] destinations) {
+        reset();
+        for (int origin : origins) {
+            forwardDistance[origin] = 0;
+            forwardEdge[origin] = NONE;
+            forwardReached.set(origin);
+            forwardQueue.insertOrDecrease(origin, 0);
+        }
+        for (int destination : destinations) {
+            backwardDistance[destination] = 0;
+            backwardEdge[destination] = NONE;
+            backwardReached.set(destination);
+            backwardQueue.insertOrDecrease(destination, 0);
+            meet(destination);
+        }
+
+        // each side stops once its smallest key cannot lead to a better meeting
+        while (true) {
+            boolean forwardDone = forwardQueue.isEmpty() || forwardQueue.getKey(forwardQueue.peekMin()) >= bestDistance;
+            boolean backwardDone = backwardQueue.isEmpty() || backwardQueue.getKey(backwardQueue.peekMin()) >= bestDistance;
+            if (forwardDone && backwardDone) break;
+
+            if (backwardDone || (!forwardDone
+                    && forwardQueue.getKey(forwardQueue.peekMin()) <= backwardQueue.getKey(backwardQueue.peekMin()))) {
+                int u = forwardQueue.pollMin();
+                if (isForwardStalled(u)) continue;
+                for (int e = upStart[u]; e < upStart[u + 1]; e++) {
+                    int w = upTo[e];
+                    int newDistance = forwardDistance[u] + upCost[e];
+                    if (newDistance < forwardDistance[w]) {
+                        forwardDistance[w] = newDistance;
+                        forwardEdge[w] = e;
+                        forwardReached.set(w);
+                        forwardQueue.insertOrDecrease(w, newDistance);
+                        meet(w);
+                    }
+                }
+            } else {
+                int u = backwardQueue.pollMin();
+                if (isBackwardStalled(u)) continue;
+                for (int e = downStart[u]; e < downStart[u + 1]; e++) {
+                    int w = downFrom[e];
+                    int newDistance = backwardDistance[u] + downCost[e];
+                    if (newDistance < backwardDistance[w]) {
+                        backwardDistance[w] = newDistance;
+                        backwardEdge[w] = e;
+                        backwardReached.set(w);
+                        backwardQueue.insertOrDecrease(w, newDistance);
+                        meet(w);
+                    }
+                }
+            }
+        }
+
+        return bestDistance != INFINITY;
+    } // end of search()
+
+    /**
+     * Stall-on-demand: a node reached more cheaply through a higher node, by an edge coming down to it,
+     * is not on a shortest up path, so its edges need not be followed.
+     */
+    private boolean isForwardStalled(int u) {
+        for (int e = downStart[u]; e < downStart[u + 1]; e++) {
+            int w = downFrom[e];
+            if (forwardDistance[w] != INFINITY && forwardDistance[w] + downCost[e] < forwardDistance[u]) return true;
+        }
+        return false;
+    }
+
+    private boolean isBackwardStalled(int u) {
+        for (int e = upStart[u]; e < upStart[u + 1]; e++) {
+            int w = upTo[e];
+            if (backwardDistance[w] != INFINITY && backwardDistance[w] + upCost[e] < backwardDistance[u]) return true;
+        }
+        return false;
+    }
+
+    private void meet(int node) {
+        if (forwardDistance[node] == INFINITY || backwardDistance[node] == INFINITY) return;
+        long candidate = (long) forwardDistance[node] + backwardDistance[node];
+        if (candidate < bestDistance) {
+            bestDistance = (int) candidate;
+            meetingNode = node;
+        }
+    }
+
+    private void reset() {
+        for (int i = forwardReached.nextSetBit(0); i >= 0; i = forwardReached.nextSetBit(i + 1)) {
+            forwardDistance[i] = INFINITY;
+        }
+        for (int i = backwardReached.nextSetBit(0); i >= 0; i = backwardReached.nextSetBit(i + 1)) {
+            backwardDistance[i] = INFINITY;
+        }
+        forwardReached.clear();
+        backwardReached.clear();
+        forwardQueue.clear();
+        backwardQueue.clear();
+        bestDistance = INFINITY;
+        meetingNode = NONE;
+    }
+
+    //
+    // Results of the last query
+    //
+
+    int getDistance() {
+        return bestDistance;
+    }
+
+    /**
+     * @return the cell indices from the origin up to the meeting node and down to the destination,
+     * with every shortcut unpacked into moves
+     */
+    int[] getPath() {
+        IntList path = new IntList();
+        if (meetingNode == NONE) return path.toArray();
+
+        // the upward edges from the origin to the meeting node, last one first
+        IntList forward = new IntList();
+        int origin = meetingNode;
+        while (forwardEdge[origin] != NONE) {
+            int e = forwardEdge[origin];
+            forward.add(e);
+            origin = findUpSource(e);
+        }
+
+        path.add(origin);
+        int node = origin;
+        for (int i = forward.size() - 1; i >= 0; i--) {
+            int e = forward.get(i);
+            unpack(node, upTo[e], upMiddle[e], path);
+            node = upTo[e];
+        }
+        while (backwardEdge[node] != NONE) {
+            int e = backwardEdge[node];
+            int next = findDownTarget(e);
+            unpack(node, next, downMiddle[e], path);
+            node = next;
+        }
+        return path.toArray();
+    } // end of getPath()
+
+    /**
+     * Append the moves of the edge from u to w, skipping u itself.
+     */
+    private void unpack(int u, int w, int middle, IntList path) {
+        // pending (from, to, middle) edges, the top one comes first on the path
+        IntList stack = new IntList();
+        stack.add(u);
+        stack.add(w);
+        stack.add(middle);
+        while (stack.size() > 0) {
+            int m = stack.get(stack.size() - 1);
+            int to = stack.get(stack.size() - 2);
+            int from = stack.get(stack.size() - 3);
+            stack.removeLast(3);
+            if (m == NONE) {
+                path.add(to);
+                continue;
+            }
+            // the middle node is below both ends: from -> m is a downward edge into m, m -> to an upward edge of m
+            int second = findUpEdge(m, to);
+            int first = findDownEdge(m, from);
+            stack.add(m);
+            stack.add(to);
+            stack.add(upMiddle[second]);
+            stack.add(from);
+            stack.add(m);
+            stack.add(downMiddle[first]);
+        }
+    }
+
+    private int findUpEdge(int u, int w) {
+        for (int e = upStart[u]; e < upStart[u + 1]; e++) {
+            if (upTo[e] == w) return e;
+        }
+        throw new IllegalStateException("Missing edge in the contraction hierarchy.");
+    }
+
+    private int findDownEdge(int u, int w) {
+        for (int e = downStart[u]; e < downStart[u + 1]; e++) {
+            if (downFrom[e] == w) return e;
+        }
+        throw new IllegalStateException("Missing edge in the contraction hierarchy.");
+    }
+
+    /**
+     * @return the node whose upward edges contain the edge
+     */
+    private int findUpSource(int e) {
+        return findOwner(upStart, e);
+    }
+
+    /**
+     * @return the node whose downward edges contain the edge, which is where the edge goes
+     */
+    private int findDownTarget(int e) {
+        return findOwner(downStart, e);
+    }
+
+    private int findOwner(int[] start, int e) {
+        int low = 0;
+        int high = nodeNum - 1;
+        // the last node whose first edge is at or before e
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (start[middle] <= e) low = middle;
+            else high = middle - 1;
+        }
+        return low;
+    }
+
+    /**
+     * @return all the nodes reached by either side of the last query
+     */
+    BitSet visitedCells() {
+        BitSet reached = (BitSet) forwardReached.clone();
+        reached.or(backwardReached);
+        return reached;
+    }
+
+    int getShortcutNum() {
+        int shortcuts = 0;
+        for (int middle : upMiddle) {
+            if (middle != NONE) shortcuts++;
+        }
+        for (int middle : downMiddle) {
+            if (middle != NONE) shortcuts++;
+        }
+        return shortcuts;
+    }
+
+} // end of class ContractionHierarchy
@@ -0,0 +1,53 @@
+package pathFinder;
+
+import map.Coordinate;
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * Contraction Hierarchy path finder.
+ * <p>
+ * The map is contracted once, which takes a while, and then every point to point query only runs two
+ * small upward searches, so it pays off when many paths are found on the same map. The hierarchy is
+ * rebuilt whenever the map changes. The hierarchy keeps the state of its search, so queries of several
+ * threads search it one at a time.
+ */
+public class ContractionHierarchyPathFinder extends DijkstraPathFinder {
+
+    private ContractionHierarchy hierarchy;
+    private long hierarchyVersion;
+
+    public ContractionHierarchyPathFinder(PathMap map) {
+        super(map);
+    } // end of ContractionHierarchyPathFinder()
+
+    @Override
+    protected PathRecorder searchFromAny(SearchContext context, List<Coordinate> origins, List<Coordinate> destinations) {
+        ContractionHierarchy hierarchy = getHierarchy();
+
+        synchronized (hierarchy) {
+            boolean isFound = hierarchy.search(toIndices(origins), toIndices(destinations));
+            BitSet nodeVisited = hierarchy.visitedCells();
+
+            if (!isFound) {
+                return PathRecorder.notFound(nodeVisited);
+            }
+            return new PathRecorder(map, hierarchy.getPath(), hierarchy.getDistance(), nodeVisited, true);
+        }
+    } // end of searchFromAny()
+
+    /**
+     * The hierarchy is built on the first query and kept until the map changes.
+     *
+     * @return the hierarchy of the current map
+     */
+    private synchronized ContractionHierarchy getHierarchy() {
+        if (this.hierarchy == null || hierarchyVersion != map.getVersion()) {
+            this.hierarchy = new ContractionHierarchy(map);
+            this.hierarchyVersion = map.getVersion();
+        }
+        return hierarchy;
+    }
+
+} // end of class ContractionHierarchyPathFinder
@@ -0,0 +1,390 @@
+package pathFinder;
+
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * D* Lite incremental planner on cell indices.
+ * <p>
+ * The search runs backwards from the destinations, so g(s) is the distance from cell s to the closest
+ * destination, and rhs(s) is the one step lookahead: the cheapest move out of s plus the g of the cell entered.
+ * A cell is consistent when both agree, and only inconsistent cells are queued, ordered by
+ * [min(g, rhs) + h(s) + km, min(g, rhs)], where h is the Manhattan distance to the closest origin.
+ * <p>
+ * When cells change, only the rhs of the cells next to them can change, so only those are queued again,
+ * and the next plan repairs the part of the tree the change reaches instead of searching from scratch.
+ * When the origins move, km grows by the largest drop of h instead of re-keying the whole queue.
+ * Terrain costs are assumed to be at least 1, so that one move covers at least one unit of Manhattan distance;
+ * a smaller cost makes the planner start over.
+ */
+class DStarLite {
+
+    static final int INFINITY = GridSearch.INFINITY;
+    static final int NONE = GridSearch.NONE;
+
+    private PathMap map;
+    private int sizeR;
+    private int sizeC;
+
+    private int[] g;
+    private int[] rhs;
+    private BitSet destinationCells;
+    private int[] destinations;
+    private int[] origins;
+    private long km;
+    private KeyedHeap queue;
+
+    // cells expanded by the last plan
+    private BitSet expanded;
+
+    /**
+     * @param map          the map to plan on
+     * @param destinations the destination cell indices
+     */
+    DStarLite(PathMap map, int[] destinations) {
+        this.map = map;
+        this.sizeR = map.sizeR;
+        this.sizeC = map.sizeC;
+        this.destinations = destinations.clone();
+        this.origins = new int[0];
+        this.expanded = new BitSet(sizeR * sizeC);
+        start();
+    } // end of DStarLite()
+
+    /**
+     * Forget everything and queue the destinations again.
+     */
+    private void start() {
+        int cellNum = sizeR * sizeC;
+        this.g = new int[cellNum];
+        this.rhs = new int[cellNum];
+        this.destinationCells = new BitSet(cellNum);
+        this.queue = new KeyedHeap(cellNum);
+        this.km = 0;
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        for (int destination : destinations) {
+            // an impassable destination is kept, it can never be entered but an origin may be on it
+            destinationCells.set(destination);
+            rhs[destination] = 0;
+            queue.update(destination, key(destination), 0);
+        }
+    }
+
+    /**
+     * Move the origins. The queued keys stay valid lower bounds once km covers the largest drop of h.
+     *
+     * @param newOrigins the origin cell indices
+     */
+    void setOrigins(int[] newOrigins) {
+        if (origins.length > 0) {
+            // h drops by at most the distance from some new origin to the closest old one
+            long shift = 0;
+            for (int origin : newOrigins) {
+                shift = Math.max(shift, manhattan(origins, origin));
+            }
+            km += shift;
+        }
+        this.origins = newOrigins.clone();
+    }
+
+    /**
+     * Take note of cells which have been made (im)passable or given another terrain cost since the last plan.
+     * Moving into a changed cell costs something else now, so the rhs of every neighbour is checked again.
+     *
+     * @param cells the changed cell indices
+     */
+    void cellsChanged(int[] cells) {
+        for (int cell : cells) {
+            if (!isImpassable(cell) && terrainCost(cell) < 1) {
+                start();
+                return;
+            }
+        }
+
+        for (int cell : cells) {
+            int r = cell / sizeC;
+            int c = cell - r * sizeC;
+            if (r + 1 < sizeR) updateCell(cell + sizeC);
+            if (r - 1 >= 0) updateCell(cell - sizeC);
+            if (c + 1 < sizeC) updateCell(cell + 1);
+            if (c - 1 >= 0) updateCell(cell - 1);
+        }
+    }
+
+    /**
+     * Repair the tree until the best origin is consistent and nothing queued can beat it.
+     *
+     * @return true if a path has been found
+     */
+    boolean plan() {
+        expanded.clear();
+        int origin = bestOrigin();
+        while (!queue.isEmpty() && (origin == NONE || queue.compareTop(key(origin), Math.min(g[origin], rhs[origin])) < 0
+                || rhs[origin] != g[origin])) {
+            int u = queue.top();
+            long oldKey = queue.topKey();
+            long newKey = key(u);
+            expanded.set(u);
+
+            if (oldKey < newKey) {
+                // km has grown since u was queued
+                queue.update(u, newKey, Math.min(g[u], rhs[u]));
+            } else if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                queue.remove(u);
+                updatePredecessors(u);
+            } else {
+                g[u] = INFINITY;
+                updateCell(u);
+                updatePredecessors(u);
+            }
+            origin = bestOrigin();
+        }
+        return origin != NONE && g[origin] != INFINITY;
+    } // end of plan()
+
+    /**
+     * @return the origin with the smallest g, then rhs, or NONE if there are no origins
+     */
+    private int bestOrigin() {
+        int best = NONE;
+        for (int origin : origins) {
+            if (best == NONE || Math.min(g[origin], rhs[origin]) < Math.min(g[best], rhs[best])) best = origin;
+        }
+        return best;
+    }
+
+    /**
+     * The cells which can move into u, whose lookahead goes through u.
+     */
+    private void updatePredecessors(int u) {
+        // nothing can move into an impassable cell
+        if (isImpassable(u)) return;
+        int r = u / sizeC;
+        int c = u - r * sizeC;
+        if (r + 1 < sizeR) updateCell(u + sizeC);
+        if (r - 1 >= 0) updateCell(u - sizeC);
+        if (c + 1 < sizeC) updateCell(u + 1);
+        if (c - 1 >= 0) updateCell(u - 1);
+    }
+
+    /**
+     * Recompute the lookahead of the cell, and queue it if it is inconsistent.
+     */
+    private void updateCell(int u) {
+        if (!destinationCells.get(u)) {
+            rhs[u] = lookahead(u);
+        }
+        if (g[u] != rhs[u]) {
+            queue.update(u, key(u), Math.min(g[u], rhs[u]));
+        } else {
+            queue.remove(u);
+        }
+    }
+
+    /**
+     * @return the cheapest move out of the cell plus the g of the cell entered
+     */
+    private int lookahead(int u) {
+        int r = u / sizeC;
+        int c = u - r * sizeC;
+        int best = INFINITY;
+        if (r + 1 < sizeR) best = Math.min(best, step(u + sizeC));
+        if (r - 1 >= 0) best = Math.min(best, step(u - sizeC));
+        if (c + 1 < sizeC) best = Math.min(best, step(u + 1));
+        if (c - 1 >= 0) best = Math.min(best, step(u - 1));
+        return best;
+    }
+
+    private int step(int next) {
+        if (isImpassable(next) || g[next] == INFINITY) return INFINITY;
+        return g[next] + terrainCost(next);
+    }
+
+    private long key(int u) {
+        int m = Math.min(g[u], rhs[u]);
+        if (m == INFINITY) return Long.MAX_VALUE;
+        return (long) m + (origins.length == 0 ? 0 : manhattan(origins, u)) + km;
+    }
+
+    private int manhattan(int[] cells, int u) {
+        int r = u / sizeC;
+        int c = u - r * sizeC;
+        int closest = Integer.MAX_VALUE;
+        for (int cell : cells) {
+            closest = Math.min(closest, Math.abs(cell / sizeC - r) + Math.abs(cell % sizeC - c));
+        }
+        return closest;
+    }
+
+    private boolean isImpassable(int cell) {
+        return map.isImpassable(cell);
+    }
+
+    private int terrainCost(int cell) {
+        return map.getTerrainCost(cell);
+    }
+
+    //
+    // Results of the last plan
+    //
+
+    /**
+     * @return the distance from the best origin to the closest destination, INFINITY if there is no path
+     */
+    int getDistance() {
+        int origin = bestOrigin();
+        return origin == NONE ? INFINITY : g[origin];
+    }
+
+    /**
+     * Follow the cheapest lookahead from the best origin down to a destination, O(path length).
+     *
+     * @return the cell indices of the path, empty if there is none
+     */
+    int[] getPath() {
+        IntList path = new IntList();
+        int u = bestOrigin();
+        if (u == NONE || g[u] == INFINITY) return path.toArray();
+
+        path.add(u);
+        // g strictly drops along the path, so it cannot be longer than the number of cells
+        while (!destinationCells.get(u) && path.size() <= sizeR * sizeC) {
+            int r = u / sizeC;
+            int c = u - r * sizeC;
+            int next = NONE;
+            if (r + 1 < sizeR) next = cheaperStep(next, u + sizeC);
+            if (r - 1 >= 0) next = cheaperStep(next, u - sizeC);
+            if (c + 1 < sizeC) next = cheaperStep(next, u + 1);
+            if (c - 1 >= 0) next = cheaperStep(next, u - 1);
+            u = next;
+            path.add(u);
+        }
+        return path.toArray();
+    }
+
+    private int cheaperStep(int best, int candidate) {
+        if (step(candidate) == INFINITY) return best;
+        return best == NONE || step(candidate) < step(best) ? candidate : best;
+    }
+
+    /**
+     * @return the cells expanded by the last plan, which is all a replan costs
+     */
+    BitSet visitedCells() {
+        return (BitSet) expanded.clone();
+    }
+
+    int getExpandedNum() {
+        return expanded.cardinality();
+    }
+
+    int[] getDestinations() {
+        return destinations;
+    }
+
+
+    /**
+     * A binary heap of cells with two part keys (key, tie), compared lexicographically, where the key of a
+     * queued cell can go up or down and a cell can be taken out anywhere in the heap.
+     */
+    private static class KeyedHeap {
+
+        private static final int ABSENT = -1;
+
+        private int[] heap;
+        private int[] position;
+        private long[] key;
+        private int[] tie;
+        private int size;
+
+        KeyedHeap(int capacity) {
+            this.heap = new int[capacity];
+            this.position = new int[capacity];
+            this.key = new long[capacity];
+            this.tie = new int[capacity];
+            Arrays.fill(position, ABSENT);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int top() {
+            return heap[0];
+        }
+
+        long topKey() {
+            return key[heap[0]];
+        }
+
+        /**
+         * @return negative, zero or positive as the top key is below, equal to or above (k, t)
+         */
+        int compareTop(long k, int t) {
+            int cell = heap[0];
+            if (key[cell] != k) return key[cell] < k ? -1 : 1;
+            return Integer.compare(tie[cell], t);
+        }
+
+        void update(int cell, long k, int t) {
+            if (position[cell] == ABSENT) {
+                heap[size] = cell;
+                position[cell] = size++;
+            }
+            key[cell] = k;
+            tie[cell] = t;
+            siftUp(position[cell]);
+            siftDown(position[cell]);
+        }
+
+        void remove(int cell) {
+            int slot = position[cell];
+            if (slot == ABSENT) return;
+            position[cell] = ABSENT;
+            size--;
+            if (slot < size) {
+                heap[slot] = heap[size];
+                position[heap[slot]] = slot;
+                siftUp(slot);
+                siftDown(position[heap[slot]]);
+            }
+        }
+
+        private boolean less(int a, int b) {
+            if (key[a] != key[b]) return key[a] < key[b];
+            return tie[a] < tie[b];
+        }
+
+        private void siftUp(int slot) {
+            int cell = heap[slot];
+            while (slot > 0) {
+                int parentSlot = (slot - 1) >>> 1;
+                if (!less(cell, heap[parentSlot])) break;
+                heap[slot] = heap[parentSlot];
+                position[heap[slot]] = slot;
+                slot = parentSlot;
+            }
+            heap[slot] = cell;
+            position[cell] = slot;
+        }
+
+        private void siftDown(int slot) {
+            int cell = heap[slot];
+            while (2 * slot + 1 < size) {
+                int child = 2 * slot + 1;
+                if (child + 1 < size && less(heap[child + 1], heap[child])) child++;
+                if (!less(heap[child], cell)) break;
+                heap[slot] = heap[child];
+                position[heap[slot]] = slot;
+                slot = child;
+            }
+            heap[slot] = cell;
+            position[cell] = slot;
+        }
+
+    } // end of class KeyedHeap
+
+} // end of class DStarLite
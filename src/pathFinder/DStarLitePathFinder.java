@@ -0,0 +1,63 @@
+package pathFinder;
+
+import map.Coordinate;
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * D* Lite path finder, for maps which keep changing between calls to findPath().
+ * <p>
+ * The planner keeps its search state between calls. After changing cells, pass them to cellsChanged()
+ * and the next findPath() only repairs the part of the search the change affects, and moving origins
+ * cost little as well. If the map changes without cellsChanged() being told, or the destinations change,
+ * the planner starts over. There is only one planner, so queries of several threads plan one at a time.
+ */
+public class DStarLitePathFinder extends DijkstraPathFinder {
+
+    private DStarLite planner;
+    // version of the map the planner knows about
+    private long plannerVersion;
+
+    public DStarLitePathFinder(PathMap map) {
+        super(map);
+    } // end of DStarLitePathFinder()
+
+    /**
+     * Tell the planner which cells have been made (im)passable or given another terrain cost
+     * since the last call to findPath().
+     *
+     * @param cells the changed coordinates of the map
+     */
+    public synchronized void cellsChanged(Collection<Coordinate> cells) {
+        if (planner == null) return;
+        planner.cellsChanged(toIndices(new ArrayList<>(cells)));
+        plannerVersion = map.getVersion();
+    } // end of cellsChanged()
+
+    @Override
+    protected synchronized PathRecorder searchFromAny(SearchContext context, List<Coordinate> origins, List<Coordinate> destinations) {
+        int[] destinationIndices = toIndices(destinations);
+        if (planner == null || plannerVersion != map.getVersion()
+                || !Arrays.equals(sorted(planner.getDestinations()), sorted(destinationIndices))) {
+            this.planner = new DStarLite(map, destinationIndices);
+            this.plannerVersion = map.getVersion();
+        }
+
+        planner.setOrigins(toIndices(origins));
+        boolean isFound = planner.plan();
+        BitSet nodeVisited = planner.visitedCells();
+
+        if (!isFound) {
+            return PathRecorder.notFound(nodeVisited);
+        }
+        return new PathRecorder(map, planner.getPath(), planner.getDistance(), nodeVisited, true);
+    } // end of searchFromAny()
+
+    private static int[] sorted(int[] cells) {
+        int[] copy = cells.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+} // end of class DStarLitePathFinder
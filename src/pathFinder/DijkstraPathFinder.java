@@ -4,408 +4,302 @@ import map.Coordinate;
 import map.PathMap;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
+/**
+ * Dijkstra path finder.
+ * <p>
+ * The finder only keeps what is fixed for its map and its settings, and every query searches with a
+ * SearchContext borrowed from the finder's pool, so one finder can answer queries from any number of threads
+ * at once. The settings must be chosen before the first query.
+ */
 public class DijkstraPathFinder implements PathFinder {
 
-    private PathMap map;
-    private ArrayList<PathRecorder> allPossiblePath;
+    protected PathMap map;
+    private volatile QueueType queueType = QueueType.AUTO;
+    private volatile LegCache legCache;
+    private volatile ForkJoinPool pool;
+    // the search contexts of the queries, one per query running at once
+    private volatile SearchContext.Pool contexts;
+    // the route of the last findPath(), for coordinatesExplored()
+    private volatile Route lastRoute;
 
     public DijkstraPathFinder(PathMap map) {
         this.map = map;
+        this.contexts = new SearchContext.Pool(map, queueType);
     } // end of DijkstraPathFinder()
 
+    /**
+     * Choose the priority queue of the searches, AUTO by default. It must be set before findPath().
+     *
+     * @param queueType the priority queue to keep the pending cells in
+     */
+    public void setQueueType(QueueType queueType) {
+        this.queueType = queueType;
+        this.contexts = new SearchContext.Pool(map, queueType);
+    }
+
+    protected QueueType getQueueType() {
+        return queueType;
+    }
+
+    /**
+     * Keep the legs searched by findPath() in the cache, so later calls on the same map can reuse them.
+     * There is no cache by default.
+     *
+     * @param legCache the cache of the map, or null to stop caching
+     */
+    public void setLegCache(LegCache legCache) {
+        this.legCache = legCache;
+    }
+
+    public LegCache getLegCache() {
+        return legCache;
+    }
+
+    /**
+     * Run the searches from different origins and way points in the pool. The path found is the same
+     * as without a pool. The searches run one by one on the calling thread by default.
+     *
+     * @param pool the pool to search in, or null to search sequentially
+     */
+    public void setForkJoinPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return pool;
+    }
+
     @Override
     public List<Coordinate> findPath() {
-        // when there are no way points, simply call findPathBetween method to improve the performance
-        // when there are way points, call findPathAmong to consider all the way points
-        // as for more than one origins or destinations, we need to select the minimum one from all the possible paths
-        this.allPossiblePath = new ArrayList<>();
-
-        if (this.map.waypointCells.size() == 0) {
-            for (Coordinate co : map.originCells) {
-                for (Coordinate cd : map.destCells) {
-                    allPossiblePath.add(findPathBetween(co, cd));
-                }
-            }
-        } else {
-            for (Coordinate co : map.originCells) {
-                for (Coordinate cd : map.destCells) {
-                    allPossiblePath.add(findPathAmong(co, cd, map.waypointCells));
-                }
-            }
-        }
+        Route route = findRoute(map.originCells, map.destCells, map.waypointCells);
+        this.lastRoute = route;
 
-        int minimumIndex = findMinimumIndex();
-
-        if (allPossiblePath.get(minimumIndex).isFound()) {
-            System.out.println("Shortest Distance: " + allPossiblePath.get(minimumIndex).getShortestDistance());
-            return allPossiblePath.get(minimumIndex).getPath();
+        if (route.isFound()) {
+            System.out.println("Shortest Distance: " + route.getDistance());
+            return route.getPath();
         } else {
             return new ArrayList<>();
         }
     } // end of findPath()
 
 
+    /**
+     * Counts the coordinates explored by the last findPath(). Concurrent queries should read
+     * Route.getCoordinatesExplored() of their own route instead.
+     */
     @Override
     public int coordinatesExplored() {
-        HashSet<Coordinate> resultSet = new HashSet<>();
-        for (PathRecorder p : allPossiblePath) {
-            resultSet.addAll(p.getNodesVisited());
-        }
-        return resultSet.size();
+        Route route = lastRoute;
+        return route == null ? 0 : route.getCoordinatesExplored();
     } // end of cellsExplored()
 
     /**
-     * find the index of the minimum distance from allPossiblePath
+     * Find the shortest route of one query, whatever the origins, destinations and way points of the map are.
+     * The query searches with a context borrowed from the pool of the finder, so it is safe to call from several
+     * threads at once, and a batch of queries on the same map allocates the search buffers only once.
      *
-     * @return this minimum index
+     * @param origins      all the origin coordinates
+     * @param destinations all the destination coordinates
+     * @param wayPoints    all the way points must be visited, may be empty
+     * @return the route found
      */
-    private int findMinimumIndex() {
-        int minimumIndex = 0;
-        for (int i = 1; i < allPossiblePath.size(); i++) {
-            if (allPossiblePath.get(minimumIndex).getShortestDistance() > allPossiblePath.get(i).getShortestDistance()) {
-                minimumIndex = i;
-            }
+    public Route findRoute(List<Coordinate> origins, List<Coordinate> destinations, List<Coordinate> wayPoints) {
+        SearchContext.Pool contexts = this.contexts;
+        SearchContext context = contexts.acquire();
+        try {
+            return new Route(findPathFor(context, origins, destinations, wayPoints));
+        } finally {
+            contexts.release(context);
+        }
+    }
+
+    private PathRecorder findPathFor(SearchContext context, List<Coordinate> origins, List<Coordinate> destinations, List<Coordinate> wayPoints) {
+        // when there are no way points, call findPathFromAny to search from all the origins towards all the destinations at once
+        // when there are way points, call findPathAmong to consider all the way points and all the origins and destinations at once
+        // either way the minimum among all the origins and destinations is found, so there is only one possible path left
+        if (wayPoints.size() == 0) {
+            return findPathFromAny(context, origins, destinations);
         }
-        return minimumIndex;
+        return findPathAmong(context, origins, destinations, wayPoints);
     }
 
     /**
-     * @param origin      the origin point coordinate
-     * @param destination the destination point coordinate
-     * @param wayPoints   all the way points must be visited
+     * Find the shortest route from any origin to any destination through all the way points.
+     * <p>
+     * A DistanceMatrix runs one search from every origin and every way point, so each leg is searched once
+     * however many routes contain it. The way point order is then chosen by Held-Karp, where the start is
+     * "any origin" and the end is "any destination": the first leg uses the closest origin to its way point,
+     * and the last leg the closest destination from its way point.
+     *
+     * @param context      the search context of the query
+     * @param origins      all the origin coordinates
+     * @param destinations all the destination coordinates
+     * @param wayPoints    all the way points must be visited
      * @return PathRecorder that records the shortest path, the coordinates visited, and the distance of the shortest path
      */
-    private PathRecorder findPathAmong(Coordinate origin, Coordinate destination, List<Coordinate> wayPoints) {
-        // if there is no path between origin and destination
-        if (!findPathBetween(origin, destination).isFound()) return new PathRecorder();
-        // if there is no path between origin and any way points
-        boolean isReachable = true;
+    private PathRecorder findPathAmong(SearchContext context, List<Coordinate> origins, List<Coordinate> destinations, List<Coordinate> wayPoints) {
         for (Coordinate c : wayPoints) {
-            if (!findPathBetween(origin, c).isFound()) {
-                isReachable = false;
-                break;
-            }
+            if (!map.isIn(c)) return PathRecorder.notFound(new BitSet());
         }
-        if (!isReachable) return new PathRecorder();
-
-        // get all way points permutations
-        ArrayList<ArrayList<Coordinate>> allPossibleRoute = arrangementGenerator(origin, destination, wayPoints);
-
-        // search for the shortest path among all the routes
-        int shortestDistance = Integer.MAX_VALUE;
-        PathRecorder result = new PathRecorder();
-
-        for (ArrayList<Coordinate> route: allPossibleRoute) {
-            PathRecorder routeRecorder = new PathRecorder();
-            for (int i = 0; i < route.size() - 1; i++) {
-                routeRecorder.mergeRecorder(findPathBetween(route.get(i), route.get(i + 1)));
-            }
-            if (routeRecorder.getShortestDistance() < shortestDistance) {
-                shortestDistance = routeRecorder.getShortestDistance();
-                result = routeRecorder;
-            }
+        // the matrix needs every coordinate to be in the map, so origins and destinations off it are left out
+        // as searchFromAny does
+        List<Coordinate> mapOrigins = new ArrayList<>();
+        for (Coordinate c : origins) {
+            if (map.isIn(c)) mapOrigins.add(c);
         }
-        return result;
-    }
-
-    private ArrayList<ArrayList<Coordinate>> arrangementGenerator(Coordinate origin, Coordinate destination, List<Coordinate> wayPoints) {
-        Permutation.permutation(wayPoints, 0, wayPoints.size());
-        ArrayList<ArrayList<Coordinate>> result = Permutation.getResult();
-        for (ArrayList<Coordinate> c : result) {
-            c.add(0, origin);
-            c.add(destination);
+        List<Coordinate> mapDestinations = new ArrayList<>();
+        for (Coordinate c : destinations) {
+            if (map.isIn(c)) mapDestinations.add(c);
         }
-        return result;
-    }
-
-    /**
-     * @param origin      the origin point coordinate
-     * @param destination the destination point coordinate
-     * @return PathRecorder that records the shortest path, the coordinates visited, and the distance of the shortest path
-     */
-    private PathRecorder findPathBetween(Coordinate origin, Coordinate destination) {
-        if (!map.isIn(origin)) {
-            return new PathRecorder();
+        if (mapOrigins.isEmpty() || mapDestinations.isEmpty()) {
+            return PathRecorder.notFound(new BitSet());
         }
 
-        List<Coordinate> path = new ArrayList<>();
-
-        // the resultList store the shortest path to each coordinate
-        List<PathFinderRecorder> resultList = new ArrayList<>();
-        // the queue store all the coordinates which are needed to be inspected
-        Queue<PathFinderRecorder> queue = new PriorityQueue<>(new PathFinderRecorderComparator());
-
-        // the originRecorder is to record the origin coordinate
-        // because we do NOT have to move to the same coordinate, so we can simply add it to the queue
-        // to recognise the start coordinate, we set its previous coordinate to null
-        PathFinderRecorder originRecorder = new PathFinderRecorder(origin, 0, null);
-        queue.add(originRecorder);
-
-        // while there still are coordinates in the queue
-        while (queue.size() > 0) {
-            // poll the first item from the queue, and it is the shortest path
-            PathFinderRecorder temp = queue.poll();
-            resultList.add(temp);
-
-            // if this polled item is the destination coordinate, then stop inspecting the other coordinates
-            if (temp.getCurrentCoordinate().equals(destination)) {
-                break;
-            }
-
-            // if the shortest path is added to the resultList, any other approach except for the shortest path will be removed
-            queue.removeIf(p -> p.getCurrentCoordinate().equals(temp.getCurrentCoordinate()));
-
-            // initialise adjacent coordinates
-            PathFinderRecorder[] recorders = new PathFinderRecorder[4];
-            recorders[0] = null; // coordinate above
-            recorders[1] = null; // coordinate below
-            recorders[2] = null; // coordinate to the right
-            recorders[3] = null; // coordinate to the left
-
-            // if the adjacent coordinates are in the map, find them and give them values
-            if (temp.getCurrentCoordinate().getRow() + 1 < map.sizeR) {
-                recorders[0] = new PathFinderRecorder(map.cells[temp.getCurrentCoordinate().getRow() + 1][temp.getCurrentCoordinate().getColumn()],
-                        map.cells[temp.getCurrentCoordinate().getRow() + 1][temp.getCurrentCoordinate().getColumn()].getTerrainCost() + temp.getShortestDistance(),
-                        temp.getCurrentCoordinate());
-            }
-            if (temp.getCurrentCoordinate().getRow() - 1 >= 0) {
-                recorders[1] = new PathFinderRecorder(map.cells[temp.getCurrentCoordinate().getRow() - 1][temp.getCurrentCoordinate().getColumn()],
-                        map.cells[temp.getCurrentCoordinate().getRow() - 1][temp.getCurrentCoordinate().getColumn()].getTerrainCost() + temp.getShortestDistance(),
-                        temp.getCurrentCoordinate());
-            }
-            if (temp.getCurrentCoordinate().getColumn() + 1 < map.sizeC) {
-                recorders[2] = new PathFinderRecorder(map.cells[temp.getCurrentCoordinate().getRow()][temp.getCurrentCoordinate().getColumn() + 1],
-                        map.cells[temp.getCurrentCoordinate().getRow()][temp.getCurrentCoordinate().getColumn() + 1].getTerrainCost() + temp.getShortestDistance(),
-                        temp.getCurrentCoordinate());
-            }
-            if (temp.getCurrentCoordinate().getColumn() - 1 >= 0) {
-                recorders[3] = new PathFinderRecorder(map.cells[temp.getCurrentCoordinate().getRow()][temp.getCurrentCoordinate().getColumn() - 1],
-                        map.cells[temp.getCurrentCoordinate().getRow()][temp.getCurrentCoordinate().getColumn() - 1].getTerrainCost() + temp.getShortestDistance(),
-                        temp.getCurrentCoordinate());
-            }
-
-            // if the adjacent coordinates exist, and they are not contained by the result list, as well as they are passable,
-            // add them to the pending queue
-            for (PathFinderRecorder p : recorders) {
-                if (p != null) {
-                    if (!resultList.contains(p) && !p.getCurrentCoordinate().getImpassable()) {
-                        queue.add(p);
+        // the matrix sources are the origins followed by the way points,
+        // and the targets are the way points followed by the destinations
+        List<Coordinate> sources = new ArrayList<>(mapOrigins);
+        sources.addAll(wayPoints);
+        List<Coordinate> targets = new ArrayList<>(wayPoints);
+        targets.addAll(mapDestinations);
+        DistanceMatrix matrix = new DistanceMatrix(context.getSearch(), sources, targets, legCache, pool, contexts::workerSearch);
+
+        // terminal 0 is any origin, 1 to n are the way points, and n + 1 is any destination
+        // legSource[a][b] and legTarget[a][b] is the matrix entry used to move from terminal a to terminal b
+        int n = wayPoints.size();
+        int originNum = mapOrigins.size();
+        int terminalNum = n + 2;
+        int[][] distances = new int[terminalNum][terminalNum];
+        int[][] legSource = new int[terminalNum][terminalNum];
+        int[][] legTarget = new int[terminalNum][terminalNum];
+        for (int a = 0; a < terminalNum - 1; a++) {
+            // terminal 0 may start at any origin, way point a starts at its own matrix source
+            int firstSource = a == 0 ? 0 : originNum + a - 1;
+            int lastSource = a == 0 ? originNum - 1 : firstSource;
+            for (int b = 1; b < terminalNum; b++) {
+                // way point b ends at its own matrix target, terminal n + 1 may end at any destination
+                int firstTarget = b == terminalNum - 1 ? n : b - 1;
+                int lastTarget = b == terminalNum - 1 ? targets.size() - 1 : firstTarget;
+
+                distances[a][b] = GridSearch.INFINITY;
+                for (int i = firstSource; i <= lastSource; i++) {
+                    for (int j = firstTarget; j <= lastTarget; j++) {
+                        if (matrix.getDistance(i, j) < distances[a][b]) {
+                            distances[a][b] = matrix.getDistance(i, j);
+                            legSource[a][b] = i;
+                            legTarget[a][b] = j;
+                        }
                     }
                 }
             }
         }
 
-        // trace back to find the path in a reversed order (because we trace from the destination from the origin)
-        // and calculate the shortest distance of the path
-        PathFinderRecorder pendingNode = resultList.get(resultList.size() - 1);
-        int distance = pendingNode.getShortestDistance();
-        // add the destination coordinate
-        path.add(pendingNode.getCurrentCoordinate());
-
-        // trace back and add the coordinate until the origin coordinate is found
-        while (pendingNode.getPreviousCoordinate() != null) {
-            int index;
-            // find the index of the previous coordinate
-            for (index = 0; index < resultList.size(); index++) {
-                if (resultList.get(index).getCurrentCoordinate().equals(pendingNode.getPreviousCoordinate())) {
-                    break;
-                }
-            }
-            pendingNode = resultList.get(index);
-            path.add(pendingNode.getCurrentCoordinate());
+        // find the best order to visit the way points, null if some of them cannot be reached
+        int[] order = HeldKarpSolver.solve(distances);
+        if (order == null) {
+            return PathRecorder.notFound(matrix.getNodesVisited());
         }
 
-        // reverse the path to make it ascending
-        Collections.reverse(path);
-
-        // add all the coordinates visited to a hash set so there is no duplicates
-        HashSet<Coordinate> nodeVisited = new HashSet<>();
-        for (PathFinderRecorder p : resultList) {
-            nodeVisited.add(p.getCurrentCoordinate());
+        // only the legs of the winning order are turned into paths, straight from the stored search trees
+        PathRecorder result = new PathRecorder(map, new int[0], 0, matrix.getNodesVisited(), true);
+        for (int i = 0; i < order.length - 1; i++) {
+            int a = order[i];
+            int b = order[i + 1];
+            result.mergeRecorder(matrix.getLeg(legSource[a][b], legTarget[a][b]));
         }
-        for (PathFinderRecorder p : queue) {
-            nodeVisited.add(p.getCurrentCoordinate());
-        }
-
-        boolean isFound = (path.contains(origin) && path.contains(destination));
-
-        // using a PathRecorder to store the result
-        return new PathRecorder(path, distance, nodeVisited, isFound);
-    }
-
-} // end of class DijsktraPathFinder
-
-/**
- * A class to store the information when perform searching including
- * the current coordinate,
- * the shortest distance from the origin to the current coordinate,
- * and the previous coordinate the shortest path have reached.
- *
- * @author zhouzhirou
- */
-class PathFinderRecorder {
-
-    private Coordinate currentCoordinate;
-    private Integer shortestDistance;
-    private Coordinate previousCoordinate;
-
-    PathFinderRecorder(Coordinate currentCoordinate, Integer shortestDistance, Coordinate previousCoordinate) {
-        this.currentCoordinate = currentCoordinate;
-        this.shortestDistance = shortestDistance;
-        this.previousCoordinate = previousCoordinate;
-    }
-
-    Coordinate getCurrentCoordinate() {
-        return currentCoordinate;
-    }
-
-    Coordinate getPreviousCoordinate() {
-        return previousCoordinate;
+        return result;
     }
 
-    Integer getShortestDistance() {
-        return shortestDistance;
+    /**
+     * Dijkstra explores blindly, subclasses can guide the search towards the destinations.
+     *
+     * @param destinations the destination point coordinates, all in the map
+     * @return the lower bound of the distance from any cell to the closest destination
+     */
+    protected Heuristic heuristicTowards(List<Coordinate> destinations) {
+        return Heuristic.ZERO;
     }
 
-    @Override
-    public String toString() {
-        if (previousCoordinate == null) {
-            return currentCoordinate.toString() + " " + shortestDistance.toString() + " NULL";
-        } else {
-            return currentCoordinate.toString() + " " + shortestDistance.toString() + " " + previousCoordinate.toString();
+    /**
+     * Find the shortest path from any of the origins to any of the destinations with one single search,
+     * or take it from the leg cache if the same search has been run before on the unchanged map.
+     *
+     * @param context      the search context of the query
+     * @param origins      all the origin coordinates
+     * @param destinations all the destination coordinates
+     * @return PathRecorder that records the shortest path, the coordinates visited, and the distance of the shortest path
+     */
+    protected PathRecorder findPathFromAny(SearchContext context, List<Coordinate> origins, List<Coordinate> destinations) {
+        LegCache legCache = this.legCache;
+        if (legCache == null) {
+            return searchFromAny(context, origins, destinations);
         }
-    }
-
-    @Override
-    public boolean equals(Object obj) {
-        if (obj == this) return true;
-        if (obj == null || obj.getClass() != this.getClass()) return false;
-        return ((PathFinderRecorder) obj).getCurrentCoordinate().equals(this.getCurrentCoordinate());
-    }
-
-    @Override
-    public int hashCode() {
-        return currentCoordinate.hashCode();
-    }
-
-}
 
-/**
- * A comparator class to compare the shortest distance from PathFinderRecorder class
- *
- * @author zhouzhirou
- */
-class PathFinderRecorderComparator implements Comparator<PathFinderRecorder> {
-    @Override
-    public int compare(PathFinderRecorder o1, PathFinderRecorder o2) {
-        return Integer.compare(o1.getShortestDistance(), o2.getShortestDistance());
-    }
-}
-
-/**
- * A class to store the path result, it contains
- * the shortest path,
- * the corresponding distance,
- * and all the coordinate visited.
- * <p>
- * Two PathRecorders can merge into one.
- *
- * @author zhouzhirou
- */
-class PathRecorder {
-
-    private List<Coordinate> path;
-    private Integer shortestDistance;
-    private HashSet<Coordinate> nodesVisited;
-    private boolean isFound;
-
-    PathRecorder() {
-        this.path = new ArrayList<>();
-        this.shortestDistance = 0;
-        this.nodesVisited = new HashSet<>();
-        this.isFound = true;
-    }
-
-    PathRecorder(List<Coordinate> path, Integer shortestDistance, HashSet<Coordinate> nodesVisited, boolean isFound) {
-        this.path = path;
-        this.shortestDistance = shortestDistance;
-        this.nodesVisited = nodesVisited;
-        this.isFound = isFound;
-    }
-
-    boolean isFound() {
-        return isFound;
-    }
-
-    void mergeRecorder(PathRecorder p) {
-        addPath(p.getPath());
-        addShortestDistance(p.getShortestDistance());
-        addNodesVisited(p.getNodesVisited());
-        this.isFound = this.isFound && p.isFound;
-    }
-
-    Integer getShortestDistance() {
-        return shortestDistance;
-    }
-
-    HashSet<Coordinate> getNodesVisited() {
-        return nodesVisited;
-    }
-
-    List<Coordinate> getPath() {
-        return path;
-    }
+        int[] originIndices = toIndices(origins);
+        int[] destinationIndices = toIndices(destinations);
+        LegCache.Leg leg = legCache.get(originIndices, destinationIndices);
+        if (leg != null) {
+            // nothing is explored when the leg comes from the cache
+            if (!leg.isFound()) {
+                return PathRecorder.notFound(new BitSet());
+            }
+            return new PathRecorder(map, leg.getPath(map.sizeC), leg.getDistance(), new BitSet(), true);
+        }
 
-    private void addShortestDistance(Integer distance) {
-        this.shortestDistance += distance;
+        PathRecorder result = searchFromAny(context, origins, destinations);
+        legCache.put(originIndices, destinationIndices,
+                new LegCache.Leg(result.getPathCells(), map.sizeC, result.getShortestDistance(), result.getNodesVisited().cardinality()));
+        return result;
     }
 
-    private void addNodesVisited(HashSet<Coordinate> nodesVisited) {
-        this.nodesVisited.addAll(nodesVisited);
-    }
+    /**
+     * Search for the shortest path from any of the origins to any of the destinations.
+     * <p>
+     * All the origins are queued at distance 0 and the search stops when the first destination is settled,
+     * which gives the same path as searching every pair and keeping the minimum.
+     * <p>
+     * Subclasses override this search with their own point to point one. Way point routes are not searched
+     * here: they need the distances from every terminal to all the others, so findPathAmong() always builds them
+     * from full single-source Dijkstra trees, whichever subclass the finder is.
+     *
+     * @param context      the search context of the query, only used by the calling thread
+     * @param origins      all the origin coordinates
+     * @param destinations all the destination coordinates
+     * @return PathRecorder that records the shortest path, the coordinates visited, and the distance of the shortest path
+     */
+    protected PathRecorder searchFromAny(SearchContext context, List<Coordinate> origins, List<Coordinate> destinations) {
+        GridSearch search = context.getSearch();
 
-    private void addPath(List<Coordinate> path) {
-        if (this.path.size() == 0) {
-            this.path.addAll(path);
-        } else {
-            // the destination of the previous iteration is the origin of the current one,
-            // so as it is added, we do not have to add it again
-            path.remove(0);
-            this.path.addAll(path);
+        List<Coordinate> mapDestinations = new ArrayList<>();
+        for (Coordinate c : destinations) {
+            if (map.isIn(c)) mapDestinations.add(c);
         }
-    }
-
-}
+        int[] originIndices = toIndices(origins);
+        int[] destinationIndices = toIndices(mapDestinations);
 
-/**
- * A class to generate all way points permutations
- */
-class Permutation {
+        // with no destination at all there is nothing to guide the search to
+        Heuristic heuristic = mapDestinations.isEmpty() ? Heuristic.ZERO : heuristicTowards(mapDestinations);
+        int found = search.search(originIndices, destinationIndices, heuristic);
 
-    private static ArrayList<ArrayList<Coordinate>> result = new ArrayList<>();
+        BitSet nodeVisited = search.visitedCells();
 
-    static void permutation(List<Coordinate> wayPoints, int start, int end) {
-        if (start == end) {
-            ArrayList<Coordinate> coordinates = new ArrayList<>();
-            for (int i = 0; i < end; i++) {
-                coordinates.add(i, wayPoints.get(i));
-            }
-            result.add(coordinates);
-        } else {
-            for (int i = start; i < end; i++) {
-                Coordinate temp = wayPoints.get(start);
-                wayPoints.set(start, wayPoints.get(i));
-                wayPoints.set(i, temp);
-                permutation(wayPoints, start + 1, end);
-                wayPoints.set(i, wayPoints.get(start));
-                wayPoints.set(start, temp);
-            }
+        if (found == GridSearch.NONE) {
+            return PathRecorder.notFound(nodeVisited);
         }
+        return new PathRecorder(map, search.pathTo(found), search.getDistance(found), nodeVisited, true);
     }
 
-    static ArrayList<ArrayList<Coordinate>> getResult() {
-        return result;
+    /**
+     * @return the cell indices (r * sizeC + c) of the coordinates which are in the map
+     */
+    protected int[] toIndices(List<Coordinate> coordinates) {
+        int[] indices = new int[coordinates.size()];
+        int num = 0;
+        for (Coordinate c : coordinates) {
+            if (map.isIn(c)) indices[num++] = c.getRow() * map.sizeC + c.getColumn();
+        }
+        return Arrays.copyOf(indices, num);
     }
 
-}
\ No newline at end of file
+} // end of class DijsktraPathFinder
@@ -0,0 +1,251 @@
+package pathFinder;
+
+import map.Coordinate;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Shortest distances from a list of source coordinates to a list of target coordinates,
+ * built with exactly one single-source search per source.
+ * <p>
+ * Besides the distances, the shortest path tree of every source is kept so that the path of any
+ * (source, target) leg can be rebuilt on demand without searching again. As a path only ever moves
+ * to an adjacent cell, the tree stores one byte per cell, the direction towards the previous cell,
+ * instead of a full parent index.
+ * <p>
+ * With a LegCache, a source whose legs to all the targets are cached is not searched at all,
+ * and the legs of every source searched are added to the cache.
+ * <p>
+ * Given a ForkJoinPool, the searches of different sources run in parallel. Every worker thread searches
+ * with its own search core and writes only the rows of its own sources, and the cache is only read
+ * before and written after the searches on the calling thread, so the matrix is the same as a sequential one.
+ */
+class DistanceMatrix {
+
+    // directions from a cell to its previous cell
+    private static final byte UP = 0;
+    private static final byte DOWN = 1;
+    private static final byte LEFT = 2;
+    private static final byte RIGHT = 3;
+
+    private GridSearch search;
+    private int sizeC;
+    private List<Coordinate> sources;
+    private List<Coordinate> targets;
+
+    // distances[i][j] is the shortest distance from source i to target j
+    private int[][] distances;
+    // parentTrees[i][cell] is the direction from the cell to its previous cell in the tree of source i
+    private byte[][] parentTrees;
+    // cachedLegs[i][j] is the leg from source i to target j, if source i was served from the cache
+    private LegCache.Leg[][] cachedLegs;
+    // reachedCells[i] is the cells reached by the search from source i
+    private BitSet[] reachedCells;
+    // all the coordinates reached by any of the searches
+    private BitSet nodesVisited;
+
+    /**
+     * Run a single-source search from every source. All the coordinates must be in the map.
+     *
+     * @param search       the search core of the map
+     * @param sources      the coordinates legs can start at
+     * @param targets      the coordinates legs can end at
+     * @param legCache     the legs searched before on the map, or null
+     * @param pool         the pool to run the searches in, or null to run them one by one with the search core
+     * @param workerSearch gives the search core of the current worker thread of the pool
+     */
+    DistanceMatrix(GridSearch search, List<Coordinate> sources, List<Coordinate> targets, LegCache legCache,
+                   ForkJoinPool pool, Supplier<GridSearch> workerSearch) {
+        this.search = search;
+        this.sizeC = search.getSizeC();
+        this.sources = sources;
+        this.targets = targets;
+        this.distances = new int[sources.size()][targets.size()];
+        this.parentTrees = new byte[sources.size()][];
+        this.cachedLegs = new LegCache.Leg[sources.size()][];
+        this.reachedCells = new BitSet[sources.size()];
+
+        // sources whose legs are not all cached
+        int[] pending = new int[sources.size()];
+        int pendingNum = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            if (legCache != null) {
+                cachedLegs[i] = findCachedLegs(legCache, search.index(sources.get(i)));
+                if (cachedLegs[i] != null) {
+                    for (int j = 0; j < targets.size(); j++) {
+                        distances[i][j] = cachedLegs[i][j].getDistance();
+                    }
+                    continue;
+                }
+            }
+            pending[pendingNum++] = i;
+        }
+
+        if (pool == null || pendingNum < 2) {
+            for (int k = 0; k < pendingNum; k++) {
+                searchSource(search, pending[k]);
+            }
+        } else {
+            pool.invoke(new SourceSearches(pending, 0, pendingNum, workerSearch));
+        }
+
+        // merge in source order, the same whichever thread searched which source
+        BitSet reached = new BitSet(search.getCellNum());
+        for (int k = 0; k < pendingNum; k++) {
+            reached.or(reachedCells[pending[k]]);
+            if (legCache != null) {
+                cacheLegs(legCache, pending[k]);
+            }
+        }
+        this.nodesVisited = reached;
+    } // end of DistanceMatrix()
+
+    /**
+     * Search from source i and record its row of distances, its tree and the cells it reached.
+     *
+     * @param searchCore the search core owned by the current thread
+     */
+    private void searchSource(GridSearch searchCore, int i) {
+        searchCore.search(searchCore.index(sources.get(i)), GridSearch.NONE);
+        for (int j = 0; j < targets.size(); j++) {
+            distances[i][j] = searchCore.getDistance(searchCore.index(targets.get(j)));
+        }
+        parentTrees[i] = recordParentTree(searchCore);
+        reachedCells[i] = (BitSet) searchCore.reachedCells().clone();
+    }
+
+    /**
+     * Searches of a range of the pending sources, split in halves down to single sources.
+     */
+    private class SourceSearches extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private int[] pending;
+        private int from;
+        private int to;
+        private Supplier<GridSearch> workerSearch;
+
+        SourceSearches(int[] pending, int from, int to, Supplier<GridSearch> workerSearch) {
+            this.pending = pending;
+            this.from = from;
+            this.to = to;
+            this.workerSearch = workerSearch;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                searchSource(workerSearch.get(), pending[from]);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SourceSearches(pending, from, middle, workerSearch),
+                        new SourceSearches(pending, middle, to, workerSearch));
+            }
+        }
+
+    }
+
+    /**
+     * @return the cached legs from the source to every target, or null if any of them is missing
+     */
+    private LegCache.Leg[] findCachedLegs(LegCache legCache, int source) {
+        LegCache.Leg[] legs = new LegCache.Leg[targets.size()];
+        for (int j = 0; j < targets.size(); j++) {
+            legs[j] = legCache.get(new int[]{source}, new int[]{search.index(targets.get(j))});
+            if (legs[j] == null) return null;
+        }
+        return legs;
+    }
+
+    /**
+     * Add the legs from source i to every target to the cache.
+     */
+    private void cacheLegs(LegCache legCache, int i) {
+        int source = search.index(sources.get(i));
+        int visitedNum = reachedCells[i].cardinality();
+        for (int j = 0; j < targets.size(); j++) {
+            int target = search.index(targets.get(j));
+            int[] path = distances[i][j] == GridSearch.INFINITY ? new int[0] : treePath(i, j);
+            legCache.put(new int[]{source}, new int[]{target}, new LegCache.Leg(path, sizeC, distances[i][j], visitedNum));
+        }
+    }
+
+    /**
+     * @return the parent array of the last search of the search core, compressed to one direction per cell
+     */
+    private byte[] recordParentTree(GridSearch searchCore) {
+        BitSet reached = searchCore.reachedCells();
+        byte[] tree = new byte[searchCore.getCellNum()];
+        for (int cell = reached.nextSetBit(0); cell >= 0; cell = reached.nextSetBit(cell + 1)) {
+            int parent = searchCore.getParent(cell);
+            if (parent == cell - sizeC) tree[cell] = UP;
+            else if (parent == cell + sizeC) tree[cell] = DOWN;
+            else if (parent == cell - 1) tree[cell] = LEFT;
+            else if (parent == cell + 1) tree[cell] = RIGHT;
+        }
+        return tree;
+    }
+
+    /**
+     * Walk the tree of a searched source back from the target, which must be reachable.
+     *
+     * @return the cell indices from the source to the target
+     */
+    private int[] treePath(int source, int target) {
+        byte[] tree = parentTrees[source];
+        int sourceCell = search.index(sources.get(source));
+        int targetCell = search.index(targets.get(target));
+
+        int length = 1;
+        for (int cell = targetCell; cell != sourceCell; cell = previousCell(tree, cell)) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int cell = targetCell; ; cell = previousCell(tree, cell)) {
+            path[--length] = cell;
+            if (cell == sourceCell) break;
+        }
+        return path;
+    }
+
+    private int previousCell(byte[] tree, int cell) {
+        switch (tree[cell]) {
+            case UP: return cell - sizeC;
+            case DOWN: return cell + sizeC;
+            case LEFT: return cell - 1;
+            default: return cell + 1;
+        }
+    }
+
+    /**
+     * @return the shortest distance from the source to the target, Integer.MAX_VALUE if it cannot be reached
+     */
+    int getDistance(int source, int target) {
+        return distances[source][target];
+    }
+
+    BitSet getNodesVisited() {
+        return nodesVisited;
+    }
+
+    /**
+     * Rebuild the shortest path of a leg by walking the tree of the source back from the target.
+     *
+     * @param source the source index
+     * @param target the target index
+     * @return PathRecorder of the leg, without any coordinates visited as they are accounted by the matrix
+     */
+    PathRecorder getLeg(int source, int target) {
+        if (distances[source][target] == GridSearch.INFINITY) {
+            return PathRecorder.notFound(new BitSet());
+        }
+
+        int[] cells = cachedLegs[source] != null ? cachedLegs[source][target].getPath(sizeC) : treePath(source, target);
+        return new PathRecorder(search.getMap(), cells, distances[source][target], new BitSet(), true);
+    } // end of getLeg()
+
+} // end of class DistanceMatrix
@@ -0,0 +1,255 @@
+package pathFinder;
+
+import map.Coordinate;
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * Dijkstra search core that works on cell indices (r * sizeC + c) instead of Coordinate objects.
+ * <p>
+ * The shortest distance and the previous cell of every coordinate are kept in int arrays,
+ * settled cells in a bit set, and the pending cells in an indexed binary heap with decrease-key,
+ * so a search is O((V + E) log V) and does not allocate anything per visited cell.
+ * The arrays are stamped with the generation of the search which wrote them, and an entry of an older generation
+ * reads as unreached, so starting a new search only bumps the generation instead of clearing the arrays.
+ * The bit sets of reached and settled cells are still cleared by every search, one long per 64 cells up to
+ * the last cell the previous search reached, and visitedCells() copies the reached ones just as far.
+ * When the terrain costs are small integers the pending cells can be kept in a bucket queue instead,
+ * which drops the log V factor.
+ * <p>
+ * Moving into a cell costs the terrain cost of that cell, and impassable cells can never be entered.
+ * Given a Heuristic the pending cells are ordered by distance plus estimate, which turns the search into A*.
+ * One GridSearch can be reused for any number of searches on the same map, but only by one thread at a time.
+ */
+class GridSearch {
+
+    static final int INFINITY = Integer.MAX_VALUE;
+    static final int NONE = -1;
+
+    private PathMap map;
+    private int sizeR;
+    private int sizeC;
+
+    // distance[i] is the shortest known distance from the origin to cell i
+    private int[] distance;
+    // parent[i] is the previous cell on the shortest known path to cell i
+    private int[] parent;
+    // distance[i] and parent[i] are only valid if stamp[i] is the generation of the running search
+    private int[] stamp;
+    private int generation;
+    // cells whose shortest distance is final
+    private BitSet settled;
+    // cells which have been given a distance, i.e. settled or still in the queue
+    private BitSet reached;
+    private IntPriorityQueue queue;
+    private Heuristic heuristic;
+    // destinations of the running search
+    private BitSet targets;
+
+    GridSearch(PathMap map) {
+        this(map, QueueType.AUTO);
+    } // end of GridSearch()
+
+    /**
+     * @param map       the map to search
+     * @param queueType the priority queue to keep the pending cells in
+     */
+    GridSearch(PathMap map, QueueType queueType) {
+        this.map = map;
+        this.sizeR = map.sizeR;
+        this.sizeC = map.sizeC;
+        int cellNum = sizeR * sizeC;
+        this.distance = new int[cellNum];
+        this.parent = new int[cellNum];
+        this.stamp = new int[cellNum];
+        this.generation = 0;
+        this.settled = new BitSet(cellNum);
+        this.reached = new BitSet(cellNum);
+        this.targets = new BitSet(cellNum);
+        this.queue = queueType.create(cellNum, maxTerrainCost(map));
+    } // end of GridSearch()
+
+    /**
+     * @return the largest terrain cost among all the passable cells of the map
+     */
+    static int maxTerrainCost(PathMap map) {
+        int maximum = 1;
+        for (int cell = 0; cell < map.getCellNum(); cell++) {
+            if (!map.isImpassable(cell)) {
+                maximum = Math.max(maximum, map.getTerrainCost(cell));
+            }
+        }
+        return maximum;
+    }
+
+    /**
+     * Run Dijkstra from the origin until the destination is settled or every reachable cell is settled.
+     *
+     * @param origin      the origin cell index
+     * @param destination the destination cell index, or NONE to settle every reachable cell
+     * @return true if the destination has been settled
+     */
+    boolean search(int origin, int destination) {
+        return search(origin, destination, Heuristic.ZERO);
+    } // end of search()
+
+    /**
+     * Run A* from the origin until the destination is settled or every reachable cell is settled.
+     *
+     * @param origin      the origin cell index
+     * @param destination the destination cell index, or NONE to settle every reachable cell
+     * @param heuristic   the lower bound of the remaining distance to the destination
+     * @return true if the destination has been settled
+     */
+    boolean search(int origin, int destination, Heuristic heuristic) {
+        int[] destinations = destination == NONE ? new int[0] : new int[]{destination};
+        return search(new int[]{origin}, destinations, heuristic) != NONE;
+    } // end of search()
+
+    /**
+     * Run A* from all the origins at once until the first of the destinations is settled,
+     * or every reachable cell is settled if there is no destination.
+     * <p>
+     * Every origin starts at distance 0, so the destination settled first is the closest one to any origin,
+     * and following its parents back leads to the origin it is closest to.
+     *
+     * @param origins      the origin cell indices
+     * @param destinations the destination cell indices, empty to settle every reachable cell
+     * @param heuristic    the lower bound of the remaining distance to the closest destination
+     * @return the destination which has been settled, or NONE if none of them can be reached
+     */
+    int search(int[] origins, int[] destinations, Heuristic heuristic) {
+        reset();
+        this.heuristic = heuristic;
+        for (int destination : destinations) {
+            targets.set(destination);
+        }
+
+        for (int origin : origins) {
+            if (!reached.get(origin)) {
+                distance[origin] = 0;
+                parent[origin] = NONE;
+                stamp[origin] = generation;
+                reached.set(origin);
+                queue.insertOrDecrease(origin, heuristic.estimate(origin));
+            }
+        }
+
+        int found = NONE;
+        while (!queue.isEmpty()) {
+            int current = queue.pollMin();
+            settled.set(current);
+
+            if (targets.get(current)) {
+                found = current;
+                break;
+            }
+
+            int r = current / sizeC;
+            int c = current - r * sizeC;
+            // coordinate above, below, to the right and to the left
+            if (r + 1 < sizeR) relax(current, current + sizeC);
+            if (r - 1 >= 0) relax(current, current - sizeC);
+            if (c + 1 < sizeC) relax(current, current + 1);
+            if (c - 1 >= 0) relax(current, current - 1);
+        }
+
+        targets.clear();
+        return found;
+    } // end of search()
+
+    private void relax(int current, int next) {
+        if (settled.get(next)) return;
+        if (map.isImpassable(next)) return;
+
+        int newDistance = distance[current] + map.getTerrainCost(next);
+        if (stamp[next] != generation || newDistance < distance[next]) {
+            distance[next] = newDistance;
+            parent[next] = current;
+            stamp[next] = generation;
+            reached.set(next);
+            queue.insertOrDecrease(next, newDistance + heuristic.estimate(next));
+        }
+    }
+
+    /**
+     * Forget the previous search by moving to the next generation, the arrays themselves are left as they are.
+     * The bit sets are cleared as far as the previous search reached.
+     */
+    private void reset() {
+        generation++;
+        if (generation == 0) {
+            // the generations have wrapped around, so old stamps could look current again
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        reached.clear();
+        settled.clear();
+        queue.clear();
+    }
+
+    //
+    // Results of the last search
+    //
+
+    /**
+     * @return the cells given a distance by the last search, it must not be modified
+     */
+    BitSet reachedCells() {
+        return reached;
+    }
+
+    int getDistance(int cell) {
+        return stamp[cell] == generation ? distance[cell] : INFINITY;
+    }
+
+    int getParent(int cell) {
+        return stamp[cell] == generation ? parent[cell] : NONE;
+    }
+
+    /**
+     * @param cell the last cell of the path, it must have been reached by the last search
+     * @return the cell indices from the origin to the cell, following the parent array back to the origin
+     */
+    int[] pathTo(int cell) {
+        int length = 0;
+        for (int i = cell; i != NONE; i = parent[i]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int i = cell; i != NONE; i = parent[i]) {
+            path[--length] = i;
+        }
+        return path;
+    }
+
+    /**
+     * @return a copy of the cell indices reached by the last search, both settled and still pending,
+     * as the result of the query outlives the next search
+     */
+    BitSet visitedCells() {
+        return (BitSet) reached.clone();
+    }
+
+    //
+    // Conversion between coordinates and cell indices
+    //
+
+    PathMap getMap() {
+        return map;
+    }
+
+    int getSizeC() {
+        return sizeC;
+    }
+
+    int getCellNum() {
+        return sizeR * sizeC;
+    }
+
+    int index(Coordinate coord) {
+        return coord.getRow() * sizeC + coord.getColumn();
+    }
+
+} // end of class GridSearch
@@ -0,0 +1,104 @@
+package pathFinder;
+
+/**
+ * Held-Karp dynamic programming to find the cheapest order to visit all the way points.
+ * <p>
+ * The terminals are numbered 0 (the origin), 1 to n (the way points) and n + 1 (the destination).
+ * cost[mask][j] is the cheapest route that starts at the origin, visits exactly the way points in mask,
+ * and ends at way point j. It is filled in O(2^n * n^2) time and O(2^n * n) space,
+ * instead of trying all the n! permutations.
+ */
+class HeldKarpSolver {
+
+    private static final int INFINITY = GridSearch.INFINITY;
+
+    /**
+     * The cost table of 2^n * n ints must fit in memory.
+     */
+    static final int MAX_WAYPOINTS = 20;
+
+    /**
+     * @param distances distances[i][j] is the shortest distance from terminal i to terminal j,
+     *                  or Integer.MAX_VALUE if j cannot be reached from i
+     * @return the terminals in the order to visit them, starting with 0 and ending with the destination,
+     * or null if there is no route through all the way points
+     */
+    static int[] solve(int[][] distances) {
+        int destination = distances.length - 1;
+        int n = distances.length - 2;
+
+        if (n > MAX_WAYPOINTS) {
+            throw new IllegalArgumentException("At most " + MAX_WAYPOINTS + " way points are supported.");
+        }
+        if (n == 0) {
+            return distances[0][destination] == INFINITY ? null : new int[]{0, destination};
+        }
+
+        int full = (1 << n) - 1;
+        // flattened as [mask * n + j], way point j is terminal j + 1
+        int[] cost = new int[(full + 1) * n];
+        int[] previous = new int[(full + 1) * n];
+        for (int i = 0; i < cost.length; i++) {
+            cost[i] = INFINITY;
+        }
+
+        // routes which visit one way point only
+        for (int j = 0; j < n; j++) {
+            cost[(1 << j) * n + j] = distances[0][j + 1];
+            previous[(1 << j) * n + j] = -1;
+        }
+
+        // extend every route by one more way point, masks are visited in increasing order
+        // so that every subset is final before it is extended
+        for (int mask = 1; mask <= full; mask++) {
+            for (int j = 0; j < n; j++) {
+                if ((mask & (1 << j)) == 0) continue;
+                int routeCost = cost[mask * n + j];
+                if (routeCost == INFINITY) continue;
+
+                for (int k = 0; k < n; k++) {
+                    if ((mask & (1 << k)) != 0) continue;
+                    int legCost = distances[j + 1][k + 1];
+                    if (legCost == INFINITY || routeCost > INFINITY - 1 - legCost) continue;
+
+                    int next = (mask | (1 << k)) * n + k;
+                    if (routeCost + legCost < cost[next]) {
+                        cost[next] = routeCost + legCost;
+                        previous[next] = j;
+                    }
+                }
+            }
+        }
+
+        // close the route at the destination
+        int bestCost = INFINITY;
+        int bestLast = -1;
+        for (int j = 0; j < n; j++) {
+            int routeCost = cost[full * n + j];
+            int legCost = distances[j + 1][destination];
+            if (routeCost == INFINITY || legCost == INFINITY || routeCost > INFINITY - 1 - legCost) continue;
+            if (routeCost + legCost < bestCost) {
+                bestCost = routeCost + legCost;
+                bestLast = j;
+            }
+        }
+        if (bestLast == -1) {
+            return null;
+        }
+
+        // walk the previous table back from the last way point
+        int[] order = new int[n + 2];
+        order[0] = 0;
+        order[n + 1] = destination;
+        int mask = full;
+        int j = bestLast;
+        for (int i = n; i >= 1; i--) {
+            order[i] = j + 1;
+            int before = previous[mask * n + j];
+            mask &= ~(1 << j);
+            j = before;
+        }
+        return order;
+    } // end of solve()
+
+} // end of class HeldKarpSolver
@@ -0,0 +1,25 @@
+package pathFinder;
+
+/**
+ * A lower bound of the distance from a cell to the destination of a search,
+ * used to order the pending cells of A*.
+ * <p>
+ * The estimate must never exceed the real distance, and must not drop by more than
+ * the cost of a move between two adjacent cells, so that a settled cell never needs to be reopened.
+ * It must not rise by more than the largest terrain cost of the map in one move either,
+ * so that the keys of a search fit in the buckets of a BucketQueue.
+ */
+interface Heuristic {
+
+    /**
+     * The heuristic of plain Dijkstra, which does not know anything about the destination.
+     */
+    Heuristic ZERO = cell -> 0;
+
+    /**
+     * @param cell the cell index (r * sizeC + c)
+     * @return the estimated distance from the cell to the destination
+     */
+    int estimate(int cell);
+
+} // end of interface Heuristic
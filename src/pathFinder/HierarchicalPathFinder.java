@@ -0,0 +1,69 @@
+package pathFinder;
+
+import map.Coordinate;
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * Hierarchical path finder (HPA*).
+ * <p>
+ * The map is abstracted once into clusters and the transitions between them, so a query only searches
+ * a small abstract graph plus the clusters of its origins and destinations, and then expands the
+ * cells of the path it returns. Paths may only cross cluster borders at transitions, so they are
+ * near-optimal rather than always the shortest. The abstraction is rebuilt whenever the map changes.
+ * The abstraction keeps the state of its search, so queries of several threads search it one at a time.
+ */
+public class HierarchicalPathFinder extends DijkstraPathFinder {
+
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    private int clusterSize;
+    private ClusterAbstraction abstraction;
+    private long abstractionVersion;
+
+    public HierarchicalPathFinder(PathMap map) {
+        this(map, DEFAULT_CLUSTER_SIZE);
+    } // end of HierarchicalPathFinder()
+
+    /**
+     * @param map         the map to search
+     * @param clusterSize the number of rows and columns of a cluster
+     */
+    public HierarchicalPathFinder(PathMap map, int clusterSize) {
+        super(map);
+        if (clusterSize < 1) {
+            throw new IllegalArgumentException("Cluster size must be positive.");
+        }
+        this.clusterSize = clusterSize;
+    } // end of HierarchicalPathFinder()
+
+    @Override
+    protected PathRecorder searchFromAny(SearchContext context, List<Coordinate> origins, List<Coordinate> destinations) {
+        ClusterAbstraction abstraction = getAbstraction();
+
+        synchronized (abstraction) {
+            boolean isFound = abstraction.search(toIndices(origins), toIndices(destinations));
+            BitSet nodeVisited = abstraction.visitedCells();
+
+            if (!isFound) {
+                return PathRecorder.notFound(nodeVisited);
+            }
+            return new PathRecorder(map, abstraction.getPath(), abstraction.getDistance(), nodeVisited, true);
+        }
+    } // end of searchFromAny()
+
+    /**
+     * The abstraction is built on the first query and kept until the map changes.
+     *
+     * @return the abstraction of the current map
+     */
+    private synchronized ClusterAbstraction getAbstraction() {
+        if (this.abstraction == null || abstractionVersion != map.getVersion()) {
+            this.abstraction = new ClusterAbstraction(map, clusterSize);
+            this.abstractionVersion = map.getVersion();
+        }
+        return abstraction;
+    }
+
+} // end of class HierarchicalPathFinder
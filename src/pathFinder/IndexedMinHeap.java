@@ -0,0 +1,146 @@
+package pathFinder;
+
+/**
+ * A binary min heap over cell indices in the range [0, capacity).
+ * <p>
+ * Every cell can be in the heap at most once, and its position is tracked so that
+ * the key of a queued cell can be lowered in O(log n) instead of queueing a duplicate.
+ */
+class IndexedMinHeap implements IntPriorityQueue {
+
+    private static final int ABSENT = -1;
+
+    // heap[i] is the cell stored at heap slot i
+    private int[] heap;
+    // position[cell] is the heap slot of the cell, or ABSENT if it is not queued
+    private int[] position;
+    // key[cell] is the priority of the cell while it is queued
+    private int[] key;
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.key = new int[capacity];
+        this.size = 0;
+        for (int i = 0; i < capacity; i++) {
+            position[i] = ABSENT;
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int cell) {
+        return position[cell] != ABSENT;
+    }
+
+    @Override
+    public int getKey(int cell) {
+        return key[cell];
+    }
+
+    @Override
+    public void insertOrDecrease(int cell, int priority) {
+        if (position[cell] == ABSENT) {
+            key[cell] = priority;
+            heap[size] = cell;
+            position[cell] = size;
+            siftUp(size++);
+        } else if (priority < key[cell]) {
+            key[cell] = priority;
+            siftUp(position[cell]);
+        }
+    }
+
+    /**
+     * Insert the cell with the given key, or set the key of a queued cell whether it goes up or down.
+     */
+    void changeKey(int cell, int priority) {
+        if (position[cell] == ABSENT) {
+            insertOrDecrease(cell, priority);
+        } else if (priority < key[cell]) {
+            key[cell] = priority;
+            siftUp(position[cell]);
+        } else if (priority > key[cell]) {
+            key[cell] = priority;
+            siftDown(position[cell]);
+        }
+    }
+
+    @Override
+    public int peekMin() {
+        return heap[0];
+    }
+
+    @Override
+    public int pollMin() {
+        int min = heap[0];
+        position[min] = ABSENT;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Empty the heap. Only the cells still queued are touched, so this is O(size) rather than O(capacity).
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot) {
+        int cell = heap[slot];
+        int cellKey = key[cell];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) >>> 1;
+            int parentCell = heap[parentSlot];
+            if (key[parentCell] <= cellKey) {
+                break;
+            }
+            heap[slot] = parentCell;
+            position[parentCell] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = cell;
+        position[cell] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int cell = heap[slot];
+        int cellKey = key[cell];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && key[heap[right]] < key[heap[child]]) {
+                child = right;
+            }
+            if (cellKey <= key[heap[child]]) {
+                break;
+            }
+            heap[slot] = heap[child];
+            position[heap[slot]] = slot;
+            slot = child;
+        }
+        heap[slot] = cell;
+        position[cell] = slot;
+    }
+
+}
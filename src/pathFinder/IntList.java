@@ -0,0 +1,68 @@
+package pathFinder;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of ints, used for paths of cell indices and for the stacks and lists of the searches.
+ */
+class IntList {
+
+    private int[] values;
+    private int size;
+
+    IntList() {
+        this(16);
+    } // end of IntList()
+
+    IntList(int capacity) {
+        this.values = new int[Math.max(capacity, 1)];
+    } // end of IntList()
+
+    void add(int value) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    /**
+     * Append the values from index "from" of the array on.
+     */
+    void addAll(int[] array, int from) {
+        int num = array.length - from;
+        if (num <= 0) return;
+        if (size + num > values.length) values = Arrays.copyOf(values, Math.max(size * 2, size + num));
+        System.arraycopy(array, from, values, size, num);
+        size += num;
+    }
+
+    int get(int i) {
+        return values[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void removeLast(int num) {
+        size -= num;
+    }
+
+    /**
+     * Reverse the values from index "from" to the end.
+     */
+    void reverse(int from) {
+        for (int i = from, j = size - 1; i < j; i++, j--) {
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+} // end of class IntList
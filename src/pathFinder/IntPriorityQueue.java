@@ -0,0 +1,42 @@
+package pathFinder;
+
+/**
+ * A priority queue of cell indices in the range [0, capacity) with int keys,
+ * where every cell is queued at most once and the key of a queued cell can be lowered.
+ */
+interface IntPriorityQueue {
+
+    boolean isEmpty();
+
+    int size();
+
+    boolean contains(int cell);
+
+    int getKey(int cell);
+
+    /**
+     * Insert the cell with the given key, or lower its key if it is already queued with a larger one.
+     *
+     * @param cell     the cell index
+     * @param priority the new key of the cell
+     */
+    void insertOrDecrease(int cell, int priority);
+
+    /**
+     * @return the cell with the minimum key, without removing it
+     */
+    int peekMin();
+
+    /**
+     * Remove the cell with the minimum key.
+     *
+     * @return the removed cell index
+     */
+    int pollMin();
+
+    /**
+     * Empty the queue.
+     */
+    void clear();
+
+} // end of interface IntPriorityQueue
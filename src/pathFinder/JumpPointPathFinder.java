@@ -0,0 +1,42 @@
+package pathFinder;
+
+import map.Coordinate;
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * Jump Point Search path finder.
+ * <p>
+ * It is A* with the same heuristic as AStarPathFinder, but straight runs through uniform-cost regions
+ * are jumped over instead of queueing every cell, which saves most of the queue operations on open maps.
+ * Cells next to a change of terrain cost are expanded normally, so the paths stay the shortest ones
+ * when a terrain file is given.
+ */
+public class JumpPointPathFinder extends AStarPathFinder {
+
+    public JumpPointPathFinder(PathMap map) {
+        super(map);
+    } // end of JumpPointPathFinder()
+
+    @Override
+    protected PathRecorder searchFromAny(SearchContext context, List<Coordinate> origins, List<Coordinate> destinations) {
+        // the search core is allocated once per context and reused by every leg searched with it
+        JumpPointSearch search = context.getFinderCore(() -> new JumpPointSearch(map, getQueueType()));
+
+        List<Coordinate> mapDestinations = new ArrayList<>();
+        for (Coordinate c : destinations) {
+            if (map.isIn(c)) mapDestinations.add(c);
+        }
+        Heuristic heuristic = mapDestinations.isEmpty() ? Heuristic.ZERO : heuristicTowards(mapDestinations);
+
+        int found = search.search(toIndices(origins), toIndices(mapDestinations), heuristic);
+        BitSet nodeVisited = search.visitedCells();
+
+        if (found == JumpPointSearch.NONE) {
+            return PathRecorder.notFound(nodeVisited);
+        }
+        return new PathRecorder(map, search.pathTo(found), search.getDistance(found), nodeVisited, true);
+    } // end of searchFromAny()
+
+} // end of class JumpPointPathFinder
@@ -0,0 +1,266 @@
+package pathFinder;
+
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * Jump Point Search for 4-connected grids, on cell indices.
+ * <p>
+ * In a region where every cell costs the same, many shortest paths only differ in the order of their moves.
+ * The search only follows canonical ones, which move horizontally first and turn vertically, and only
+ * turn back horizontally where an obstacle forces it. Instead of queueing every cell of a straight line,
+ * a jump walks along it and only stops at a jump point: a destination, a cell with a forced neighbour,
+ * or, for horizontal jumps, a cell from which a vertical jump would stop somewhere.
+ * <p>
+ * The symmetry only holds where terrain costs are equal, so a cell whose terrain cost differs from one of
+ * its passable neighbours is not uniform: every jump stops on it, and it is expanded in all four directions
+ * like plain A* would. Origins are expanded in all four directions as well.
+ */
+class JumpPointSearch {
+
+    static final int INFINITY = GridSearch.INFINITY;
+    static final int NONE = GridSearch.NONE;
+
+    private PathMap map;
+    private int sizeR;
+    private int sizeC;
+
+    // cells which are passable and cost the same as all their passable neighbours
+    private BitSet uniform;
+    // version of the map the uniform cells were found on
+    private long uniformVersion;
+
+    // distance and previous jump point of every labelled jump point
+    private int[] distance;
+    private int[] parent;
+    private BitSet settled;
+    private BitSet reached;
+    private BitSet targets;
+    private IntPriorityQueue queue;
+    private Heuristic heuristic;
+
+    // cost of the cells entered by the last jump
+    private int jumpCost;
+
+    /**
+     * @param map       the map to search
+     * @param queueType the priority queue to keep the jump points in
+     */
+    JumpPointSearch(PathMap map, QueueType queueType) {
+        this.map = map;
+        this.sizeR = map.sizeR;
+        this.sizeC = map.sizeC;
+        int cellNum = sizeR * sizeC;
+
+        this.uniform = findUniformCells();
+        this.uniformVersion = map.getVersion();
+        this.distance = new int[cellNum];
+        this.parent = new int[cellNum];
+        this.settled = new BitSet(cellNum);
+        this.reached = new BitSet(cellNum);
+        this.targets = new BitSet(cellNum);
+        this.queue = queueType.create(cellNum, GridSearch.maxTerrainCost(map));
+        Arrays.fill(distance, INFINITY);
+        Arrays.fill(parent, NONE);
+    } // end of JumpPointSearch()
+
+    private BitSet findUniformCells() {
+        BitSet cells = new BitSet(sizeR * sizeC);
+        for (int r = 0; r < sizeR; r++) {
+            for (int c = 0; c < sizeC; c++) {
+                if (!map.isPassable(r, c)) continue;
+                int cost = map.getTerrainCost(r * sizeC + c);
+                if (sameCost(r + 1, c, cost) && sameCost(r - 1, c, cost) && sameCost(r, c + 1, cost) && sameCost(r, c - 1, cost)) {
+                    cells.set(r * sizeC + c);
+                }
+            }
+        }
+        return cells;
+    }
+
+    private boolean sameCost(int r, int c, int cost) {
+        return !map.isPassable(r, c) || map.getTerrainCost(r * sizeC + c) == cost;
+    }
+
+    /**
+     * Find the shortest path from any of the origins to any of the destinations.
+     *
+     * @param origins      the origin cell indices
+     * @param destinations the destination cell indices
+     * @param heuristic    the lower bound of the remaining distance to the closest destination
+     * @return the destination which has been reached, or NONE if none of them can be reached
+     */
+    int search(int[] origins, int[] destinations, Heuristic heuristic) {
+        reset();
+        if (uniformVersion != map.getVersion()) {
+            // a cell made impassable or given another cost changes which of its neighbours are uniform
+            this.uniform = findUniformCells();
+            this.uniformVersion = map.getVersion();
+        }
+        this.heuristic = heuristic;
+        for (int destination : destinations) {
+            targets.set(destination);
+        }
+        for (int origin : origins) {
+            if (!reached.get(origin)) {
+                distance[origin] = 0;
+                reached.set(origin);
+                queue.insertOrDecrease(origin, heuristic.estimate(origin));
+            }
+        }
+
+        int found = NONE;
+        while (!queue.isEmpty()) {
+            int current = queue.pollMin();
+            settled.set(current);
+
+            if (targets.get(current)) {
+                found = current;
+                break;
+            }
+
+            int r = current / sizeC;
+            int c = current - r * sizeC;
+            int from = parent[current];
+
+            if (from == NONE || !uniform.get(current)) {
+                // origins and cells next to a change of terrain cost: every direction
+                jumpAndRelax(current, r, c, 1, 0);
+                jumpAndRelax(current, r, c, -1, 0);
+                jumpAndRelax(current, r, c, 0, 1);
+                jumpAndRelax(current, r, c, 0, -1);
+            } else if (from / sizeC == r) {
+                // arrived horizontally: keep going, or turn vertically
+                int dc = c > from - r * sizeC ? 1 : -1;
+                jumpAndRelax(current, r, c, 0, dc);
+                jumpAndRelax(current, r, c, 1, 0);
+                jumpAndRelax(current, r, c, -1, 0);
+            } else {
+                // arrived vertically: keep going, or turn horizontally where an obstacle forces it
+                int dr = r > from / sizeC ? 1 : -1;
+                jumpAndRelax(current, r, c, dr, 0);
+                if (isForced(r, c, dr, 0, 0, 1)) jumpAndRelax(current, r, c, 0, 1);
+                if (isForced(r, c, dr, 0, 0, -1)) jumpAndRelax(current, r, c, 0, -1);
+            }
+        }
+
+        targets.clear();
+        return found;
+    } // end of search()
+
+    private void jumpAndRelax(int current, int r, int c, int dr, int dc) {
+        int next = jump(r, c, dr, dc);
+        if (next == NONE || settled.get(next)) return;
+
+        int newDistance = distance[current] + jumpCost;
+        if (newDistance < distance[next]) {
+            distance[next] = newDistance;
+            parent[next] = current;
+            reached.set(next);
+            queue.insertOrDecrease(next, newDistance + heuristic.estimate(next));
+        }
+    }
+
+    /**
+     * Walk from (r, c) in direction (dr, dc) until a jump point, and leave the cost of the walk in jumpCost.
+     *
+     * @return the jump point, or NONE if the walk runs into an obstacle or off the map first
+     */
+    private int jump(int r, int c, int dr, int dc) {
+        int cost = 0;
+        while (true) {
+            r += dr;
+            c += dc;
+            if (!map.isPassable(r, c)) return NONE;
+            int cell = r * sizeC + c;
+            cost += map.getTerrainCost(cell);
+
+            if (targets.get(cell) || !uniform.get(cell)) {
+                jumpCost = cost;
+                return cell;
+            }
+            if (dr == 0) {
+                // a horizontal walk stops where a vertical one could turn off it
+                if (isForced(r, c, 0, dc, 1, 0) || isForced(r, c, 0, dc, -1, 0)
+                        || hasVerticalJumpPoint(r, c, 1) || hasVerticalJumpPoint(r, c, -1)) {
+                    jumpCost = cost;
+                    return cell;
+                }
+            } else if (isForced(r, c, dr, 0, 0, 1) || isForced(r, c, dr, 0, 0, -1)) {
+                jumpCost = cost;
+                return cell;
+            }
+        }
+    }
+
+    /**
+     * Vertical walk used by horizontal jumps, which only needs to know whether it stops anywhere.
+     */
+    private boolean hasVerticalJumpPoint(int r, int c, int dr) {
+        while (true) {
+            r += dr;
+            if (!map.isPassable(r, c)) return false;
+            int cell = r * sizeC + c;
+            if (targets.get(cell) || !uniform.get(cell)) return true;
+            if (isForced(r, c, dr, 0, 0, 1) || isForced(r, c, dr, 0, 0, -1)) return true;
+        }
+    }
+
+    /**
+     * The side neighbour (sr, sc) of (r, c) is forced when it is passable but the side neighbour of the
+     * previous cell on the walk (r - dr, c - dc) is not, so no canonical path could have reached it earlier.
+     * A previous side neighbour with a different terrain cost blocks the symmetry just like an obstacle does.
+     */
+    private boolean isForced(int r, int c, int dr, int dc, int sr, int sc) {
+        if (!map.isPassable(r + sr, c + sc)) return false;
+        if (!map.isPassable(r - dr + sr, c - dc + sc)) return true;
+        return map.getTerrainCost((r - dr + sr) * sizeC + c - dc + sc) != map.getTerrainCost((r + sr) * sizeC + c + sc);
+    }
+
+    private void reset() {
+        for (int i = reached.nextSetBit(0); i >= 0; i = reached.nextSetBit(i + 1)) {
+            distance[i] = INFINITY;
+            parent[i] = NONE;
+        }
+        reached.clear();
+        settled.clear();
+        queue.clear();
+    }
+
+    //
+    // Results of the last search
+    //
+
+    int getDistance(int cell) {
+        return distance[cell];
+    }
+
+    /**
+     * @param cell the jump point the path ends at
+     * @return the cell indices from the origin to the cell, with the straight lines between jump points filled in
+     */
+    int[] pathTo(int cell) {
+        IntList path = new IntList();
+        path.add(cell);
+        for (int i = cell; parent[i] != NONE; i = parent[i]) {
+            int step = parent[i] / sizeC == i / sizeC ? 1 : sizeC;
+            if (parent[i] > i) {
+                for (int j = i + step; j <= parent[i]; j += step) path.add(j);
+            } else {
+                for (int j = i - step; j >= parent[i]; j -= step) path.add(j);
+            }
+        }
+        path.reverse(0);
+        return path.toArray();
+    }
+
+    /**
+     * @return the cell indices of the jump points labelled by the last search
+     */
+    BitSet visitedCells() {
+        return (BitSet) reached.clone();
+    }
+
+
+} // end of class JumpPointSearch
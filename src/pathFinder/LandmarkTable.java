@@ -0,0 +1,213 @@
+package pathFinder;
+
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * Exact distances from and to a few landmark cells, for the ALT (A*, Landmarks, Triangle inequality) heuristic.
+ * <p>
+ * For a landmark L, a cell v and a destination t, the triangle inequality gives two lower bounds of the
+ * distance from v to t: d(L, t) - d(L, v) and d(v, L) - d(t, L). Moves cost the terrain cost of the cell
+ * entered, so the distances are not symmetric and both directions are stored, one int per cell each.
+ * <p>
+ * Landmarks are picked by farthest-point selection: each new landmark is the passable cell whose distance
+ * from the closest landmark so far is the largest, and cells no landmark can reach come first, so every
+ * connected part of the map gets a landmark before any part gets a second one. The table is built once
+ * and can be shared by every query and every finder on the same map, as long as the map does not change.
+ */
+public class LandmarkTable {
+
+    public static final int DEFAULT_LANDMARK_NUM = 8;
+
+    static final int INFINITY = GridSearch.INFINITY;
+
+    private PathMap map;
+    private int sizeC;
+    private long version;
+
+    private int[] landmarks;
+    // fromLandmark[k][cell] is the distance from landmark k to the cell
+    private int[][] fromLandmark;
+    // toLandmark[k][cell] is the distance from the cell to landmark k
+    private int[][] toLandmark;
+
+    public LandmarkTable(PathMap map) {
+        this(map, DEFAULT_LANDMARK_NUM);
+    } // end of LandmarkTable()
+
+    /**
+     * Pick the landmarks and search from and to each of them.
+     *
+     * @param map         the map
+     * @param landmarkNum the largest number of landmarks, fewer are used if the map has fewer passable cells
+     */
+    public LandmarkTable(PathMap map, int landmarkNum) {
+        if (landmarkNum < 1) {
+            throw new IllegalArgumentException("At least one landmark is needed.");
+        }
+        this.map = map;
+        this.sizeC = map.sizeC;
+        this.version = map.getVersion();
+
+        int cellNum = map.sizeR * map.sizeC;
+        GridSearch search = new GridSearch(map);
+        List<int[]> from = new ArrayList<>();
+        List<int[]> to = new ArrayList<>();
+        List<Integer> picked = new ArrayList<>();
+
+        // closest[cell] is the distance from the closest landmark so far
+        int[] closest = new int[cellNum];
+        Arrays.fill(closest, INFINITY);
+        // the first landmark is the farthest cell from the first passable cell
+        int start = nextLandmark(closest, null);
+        if (start != GridSearch.NONE) {
+            search.search(start, GridSearch.NONE);
+            int[] distances = new int[cellNum];
+            for (int cell = 0; cell < cellNum; cell++) {
+                // only a cell the first passable cell can reach is worth being the first landmark
+                distances[cell] = search.getDistance(cell) == INFINITY ? -1 : search.getDistance(cell);
+            }
+            int landmark = nextLandmark(distances, null);
+            while (landmark != GridSearch.NONE && picked.size() < landmarkNum) {
+                picked.add(landmark);
+                search.search(landmark, GridSearch.NONE);
+                int[] fromDistances = new int[cellNum];
+                for (int cell = 0; cell < cellNum; cell++) {
+                    fromDistances[cell] = search.getDistance(cell);
+                    closest[cell] = Math.min(closest[cell], fromDistances[cell]);
+                }
+                from.add(fromDistances);
+                to.add(searchBackward(landmark));
+                landmark = nextLandmark(closest, picked);
+            }
+        }
+
+        this.landmarks = new int[picked.size()];
+        this.fromLandmark = new int[picked.size()][];
+        this.toLandmark = new int[picked.size()][];
+        for (int k = 0; k < picked.size(); k++) {
+            landmarks[k] = picked.get(k);
+            fromLandmark[k] = from.get(k);
+            toLandmark[k] = to.get(k);
+        }
+    } // end of LandmarkTable()
+
+    /**
+     * @param distances the distance of every cell, INFINITY if it cannot be reached
+     * @param picked    the landmarks picked so far, which are never picked again, or null
+     * @return the passable cell with the largest distance, or NONE if there is none
+     */
+    private int nextLandmark(int[] distances, List<Integer> picked) {
+        int best = GridSearch.NONE;
+        for (int cell = 0; cell < distances.length; cell++) {
+            if (map.isImpassable(cell)) continue;
+            if (picked != null && picked.contains(cell)) continue;
+            if (best == GridSearch.NONE || distances[cell] > distances[best]) best = cell;
+        }
+        return best;
+    }
+
+    /**
+     * Dijkstra towards the landmark: moving from a cell into the current cell costs the terrain cost of the
+     * current cell. Impassable cells get no distance, even though a path may start there: an impassable origin
+     * can join two parts of the map, and a bound taken from one part would exceed the bound of its neighbours
+     * in the other part by more than a move, which a bucket queue cannot order.
+     *
+     * @return the distance from every cell to the landmark
+     */
+    private int[] searchBackward(int landmark) {
+        int sizeR = map.sizeR;
+        int[] distance = new int[sizeR * sizeC];
+        Arrays.fill(distance, INFINITY);
+        IndexedMinHeap queue = new IndexedMinHeap(sizeR * sizeC);
+
+        distance[landmark] = 0;
+        queue.insertOrDecrease(landmark, 0);
+        while (!queue.isEmpty()) {
+            int current = queue.pollMin();
+            int r = current / sizeC;
+            int c = current - r * sizeC;
+            if (map.isImpassable(current)) continue;
+
+            // every edge into the current cell costs the terrain cost of the current cell
+            int newDistance = distance[current] + map.getTerrainCost(current);
+            if (r + 1 < sizeR) relaxBackward(distance, queue, current + sizeC, newDistance);
+            if (r - 1 >= 0) relaxBackward(distance, queue, current - sizeC, newDistance);
+            if (c + 1 < sizeC) relaxBackward(distance, queue, current + 1, newDistance);
+            if (c - 1 >= 0) relaxBackward(distance, queue, current - 1, newDistance);
+        }
+        return distance;
+    }
+
+    private void relaxBackward(int[] distance, IndexedMinHeap queue, int previous, int newDistance) {
+        if (map.isImpassable(previous)) return;
+        if (newDistance < distance[previous]) {
+            distance[previous] = newDistance;
+            queue.insertOrDecrease(previous, newDistance);
+        }
+    }
+
+    /**
+     * The ALT heuristic towards the destinations: the best triangle inequality bound over the landmarks,
+     * towards the closest destination.
+     *
+     * @param destinations the destination cell indices
+     * @return the lower bound of the distance from any cell to the closest destination
+     */
+    Heuristic heuristicTowards(int[] destinations) {
+        final int landmarkNum = landmarks.length;
+        // per destination, the distance from and to every landmark
+        final int[][] destinationFrom = new int[destinations.length][landmarkNum];
+        final int[][] destinationTo = new int[destinations.length][landmarkNum];
+        for (int i = 0; i < destinations.length; i++) {
+            for (int k = 0; k < landmarkNum; k++) {
+                destinationFrom[i][k] = fromLandmark[k][destinations[i]];
+                destinationTo[i][k] = toLandmark[k][destinations[i]];
+            }
+        }
+
+        return cell -> {
+            int closest = Integer.MAX_VALUE;
+            for (int i = 0; i < destinationFrom.length; i++) {
+                int bound = 0;
+                for (int k = 0; k < landmarkNum; k++) {
+                    // a bound is only known when both distances are
+                    int cellFrom = fromLandmark[k][cell];
+                    if (cellFrom != INFINITY && destinationFrom[i][k] != INFINITY) {
+                        bound = Math.max(bound, destinationFrom[i][k] - cellFrom);
+                    }
+                    int cellTo = toLandmark[k][cell];
+                    if (cellTo != INFINITY && destinationTo[i][k] != INFINITY) {
+                        bound = Math.max(bound, cellTo - destinationTo[i][k]);
+                    }
+                }
+                closest = Math.min(closest, bound);
+            }
+            return closest == Integer.MAX_VALUE ? 0 : closest;
+        };
+    } // end of heuristicTowards()
+
+    /**
+     * @return true if the map has not changed since the table was built
+     */
+    public boolean isCurrent() {
+        return version == map.getVersion();
+    }
+
+    public PathMap getMap() {
+        return map;
+    }
+
+    public int getLandmarkNum() {
+        return landmarks.length;
+    }
+
+    /**
+     * @return the cell index (r * sizeC + c) of the landmark
+     */
+    public int getLandmark(int k) {
+        return landmarks[k];
+    }
+
+} // end of class LandmarkTable
@@ -0,0 +1,243 @@
+package pathFinder;
+
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * Least recently used cache of search results (legs) on one map, kept across findPath() calls.
+ * <p>
+ * A leg is keyed by its origin and destination cells, or by the sets of them for a multi-origin
+ * multi-destination search, and stores the distance, the path as one move per byte, and the number of
+ * coordinates the search explored. The cache holds at most a given number of legs and an estimated
+ * number of bytes, evicting the least recently used legs first. Whenever the version of the map changes,
+ * i.e. a cell is made (im)passable or given another terrain cost, every leg is dropped.
+ * All the methods are synchronized, so one cache can be shared by queries on several threads.
+ */
+public class LegCache {
+
+    public static final int DEFAULT_MAX_LEGS = 1024;
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    // estimated bytes of a leg besides its moves: key, arrays, map entry and object headers
+    private static final int LEG_OVERHEAD = 128;
+
+    // moves from a cell to the next one on the path
+    static final byte UP = 0;
+    static final byte DOWN = 1;
+    static final byte LEFT = 2;
+    static final byte RIGHT = 3;
+
+    private PathMap map;
+    private int maxLegs;
+    private long maxBytes;
+
+    // in access order, the eldest entry is the least recently used one
+    private LinkedHashMap<Key, Leg> legs;
+    private long bytes;
+    private long mapVersion;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long savedVisits;
+
+    public LegCache(PathMap map) {
+        this(map, DEFAULT_MAX_LEGS, DEFAULT_MAX_BYTES);
+    } // end of LegCache()
+
+    /**
+     * @param map      the map the legs are searched on
+     * @param maxLegs  the largest number of legs to keep
+     * @param maxBytes the largest estimated memory of the legs to keep
+     */
+    public LegCache(PathMap map, int maxLegs, long maxBytes) {
+        if (maxLegs < 0 || maxBytes < 0) {
+            throw new IllegalArgumentException("Cache bounds cannot be negative.");
+        }
+        this.map = map;
+        this.maxLegs = maxLegs;
+        this.maxBytes = maxBytes;
+        this.legs = new LinkedHashMap<>(16, 0.75f, true);
+        this.mapVersion = map.getVersion();
+    } // end of LegCache()
+
+    /**
+     * @param origins      the origin cell indices of the search
+     * @param destinations the destination cell indices of the search
+     * @return the cached leg, or null if it has not been searched yet
+     */
+    synchronized Leg get(int[] origins, int[] destinations) {
+        checkVersion();
+        Leg leg = legs.get(new Key(origins, destinations));
+        if (leg == null) {
+            misses++;
+        } else {
+            hits++;
+            savedVisits += leg.visitedNum;
+        }
+        return leg;
+    }
+
+    /**
+     * Store a leg, evicting the least recently used ones if the cache is over its bounds.
+     */
+    synchronized void put(int[] origins, int[] destinations, Leg leg) {
+        checkVersion();
+        Leg old = legs.put(new Key(origins, destinations), leg);
+        if (old != null) bytes -= old.estimateBytes();
+        bytes += leg.estimateBytes();
+
+        Iterator<Leg> eldest = legs.values().iterator();
+        while (eldest.hasNext() && (legs.size() > maxLegs || bytes > maxBytes)) {
+            bytes -= eldest.next().estimateBytes();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Drop every leg if the map has changed since they were searched.
+     */
+    private void checkVersion() {
+        if (map.getVersion() != mapVersion) {
+            clear();
+            mapVersion = map.getVersion();
+        }
+    }
+
+    public synchronized void clear() {
+        legs.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return legs.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the total number of coordinates the legs served from the cache explored when they were searched
+     */
+    public synchronized long getSavedVisits() {
+        return savedVisits;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "legs: " + legs.size() + ", bytes: " + bytes + ", hits: " + hits + ", misses: " + misses
+                + ", evictions: " + evictions;
+    }
+
+    /**
+     * A cached search result. The path is kept as its first cell and one move per byte.
+     */
+    static class Leg {
+
+        private int distance;
+        private int start;
+        private byte[] moves;
+        private int visitedNum;
+        private boolean isFound;
+
+        /**
+         * @param path       cell indices from the origin to the destination, empty if not found
+         * @param sizeC      number of columns of the map
+         * @param distance   the shortest distance
+         * @param visitedNum number of coordinates explored by the search
+         */
+        Leg(int[] path, int sizeC, int distance, int visitedNum) {
+            this.distance = distance;
+            this.visitedNum = visitedNum;
+            this.isFound = path.length > 0;
+            this.start = isFound ? path[0] : GridSearch.NONE;
+            this.moves = new byte[Math.max(0, path.length - 1)];
+            for (int i = 1; i < path.length; i++) {
+                int step = path[i] - path[i - 1];
+                if (step == -sizeC) moves[i - 1] = UP;
+                else if (step == sizeC) moves[i - 1] = DOWN;
+                else if (step == -1) moves[i - 1] = LEFT;
+                else moves[i - 1] = RIGHT;
+            }
+        }
+
+        boolean isFound() {
+            return isFound;
+        }
+
+        int getDistance() {
+            return distance;
+        }
+
+        /**
+         * @return cell indices from the origin to the destination
+         */
+        int[] getPath(int sizeC) {
+            if (!isFound) return new int[0];
+            int[] path = new int[moves.length + 1];
+            path[0] = start;
+            for (int i = 0; i < moves.length; i++) {
+                switch (moves[i]) {
+                    case UP: path[i + 1] = path[i] - sizeC; break;
+                    case DOWN: path[i + 1] = path[i] + sizeC; break;
+                    case LEFT: path[i + 1] = path[i] - 1; break;
+                    default: path[i + 1] = path[i] + 1; break;
+                }
+            }
+            return path;
+        }
+
+        long estimateBytes() {
+            return LEG_OVERHEAD + moves.length;
+        }
+
+    }
+
+    /**
+     * Origins and destinations of a search, in no particular order.
+     */
+    private static class Key {
+
+        private int[] origins;
+        private int[] destinations;
+        private int hash;
+
+        Key(int[] origins, int[] destinations) {
+            this.origins = origins.clone();
+            this.destinations = destinations.clone();
+            Arrays.sort(this.origins);
+            Arrays.sort(this.destinations);
+            this.hash = 31 * Arrays.hashCode(this.origins) + Arrays.hashCode(this.destinations);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) return true;
+            if (obj == null || obj.getClass() != this.getClass()) return false;
+            Key key = (Key) obj;
+            return Arrays.equals(origins, key.origins) && Arrays.equals(destinations, key.destinations);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+} // end of class LegCache
@@ -0,0 +1,115 @@
+package pathFinder;
+
+import map.Coordinate;
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * A class to store the path result, it contains
+ * the shortest path,
+ * the corresponding distance,
+ * and all the coordinate visited.
+ * <p>
+ * The coordinates visited are a bit set over the cell indices, so merging is a word-wise or and
+ * counting them a popcount. The path is kept as cell indices (r * sizeC + c), straight from the parent arrays of the searches,
+ * and getPath() only views them as coordinates, so callers who only need the distance never build a list.
+ * <p>
+ * Two PathRecorders can merge into one.
+ *
+ * @author zhouzhirou
+ */
+class PathRecorder {
+
+    private PathMap map;
+    private IntList path;
+    private Integer shortestDistance;
+    private BitSet nodesVisited;
+    private boolean isFound;
+
+    /**
+     * @param map   the map the cells are on
+     * @param cells the cell indices of the path, from the origin to the destination
+     */
+    PathRecorder(PathMap map, int[] cells, Integer shortestDistance, BitSet nodesVisited, boolean isFound) {
+        this.map = map;
+        this.path = new IntList(cells.length);
+        this.path.addAll(cells, 0);
+        this.shortestDistance = shortestDistance;
+        this.nodesVisited = nodesVisited;
+        this.isFound = isFound;
+    }
+
+    /**
+     * @return a recorder of a path which cannot be found
+     */
+    static PathRecorder notFound(BitSet nodesVisited) {
+        return new PathRecorder(null, new int[0], Integer.MAX_VALUE, nodesVisited, false);
+    }
+
+    boolean isFound() {
+        return isFound;
+    }
+
+    void mergeRecorder(PathRecorder p) {
+        addNodesVisited(p.getNodesVisited());
+        // once a leg is missing the whole route is missing, and its distance must not be summed up
+        if (!this.isFound || !p.isFound) {
+            this.shortestDistance = Integer.MAX_VALUE;
+            this.isFound = false;
+            return;
+        }
+        if (this.map == null) this.map = p.map;
+        addPath(p.getPathCells());
+        addShortestDistance(p.getShortestDistance());
+    }
+
+    Integer getShortestDistance() {
+        return shortestDistance;
+    }
+
+    BitSet getNodesVisited() {
+        return nodesVisited;
+    }
+
+    /**
+     * @return the cell indices of the path, from the origin to the destination
+     */
+    int[] getPathCells() {
+        return path.toArray();
+    }
+
+    /**
+     * @return the coordinates of the path, each one looked up in the map only when it is read
+     */
+    List<Coordinate> getPath() {
+        final int[] cells = getPathCells();
+        final PathMap map = this.map;
+        return new AbstractList<Coordinate>() {
+            @Override
+            public Coordinate get(int i) {
+                return map.coordinate(cells[i]);
+            }
+
+            @Override
+            public int size() {
+                return cells.length;
+            }
+        };
+    }
+
+    private void addShortestDistance(Integer distance) {
+        this.shortestDistance += distance;
+    }
+
+    private void addNodesVisited(BitSet nodesVisited) {
+        this.nodesVisited.or(nodesVisited);
+    }
+
+    private void addPath(int[] cells) {
+        // the destination of the previous iteration is the origin of the current one,
+        // so as it is added, we do not have to add it again
+        this.path.addAll(cells, this.path.size() == 0 ? 0 : 1);
+    }
+
+}
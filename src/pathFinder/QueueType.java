@@ -0,0 +1,41 @@
+package pathFinder;
+
+/**
+ * The priority queue a search keeps its pending cells in.
+ */
+public enum QueueType {
+
+    /**
+     * Use the bucket queue when the largest terrain cost of the map is small, and the binary heap otherwise.
+     */
+    AUTO,
+
+    /**
+     * Indexed binary heap, O(log n) per operation whatever the terrain costs are.
+     */
+    BINARY_HEAP,
+
+    /**
+     * Dial's bucket queue, O(1) per operation but one bucket per possible cost of a move.
+     */
+    BUCKET;
+
+    /**
+     * Largest terrain cost for which AUTO picks the bucket queue.
+     */
+    static final int BUCKET_COST_LIMIT = 256;
+
+    /**
+     * @param capacity       number of cells
+     * @param maxTerrainCost the largest cost of moving into a cell, which bounds the key increase per move
+     * @return a new empty queue of this type
+     */
+    IntPriorityQueue create(int capacity, int maxTerrainCost) {
+        if (this == BUCKET || (this == AUTO && maxTerrainCost <= BUCKET_COST_LIMIT)) {
+            // a move raises the key by its cost, plus at most as much again through the heuristic
+            return new BucketQueue(capacity, 2 * maxTerrainCost);
+        }
+        return new IndexedMinHeap(capacity);
+    }
+
+} // end of enum QueueType
@@ -0,0 +1,48 @@
+package pathFinder;
+
+import map.Coordinate;
+
+import java.util.List;
+
+/**
+ * The answer to one routing query: the shortest path found, its distance and the number of coordinates
+ * explored to find it.
+ */
+public class Route {
+
+    private PathRecorder recorder;
+
+    Route(PathRecorder recorder) {
+        this.recorder = recorder;
+    } // end of Route()
+
+    public boolean isFound() {
+        return recorder.isFound();
+    }
+
+    /**
+     * @return the distance of the path, Integer.MAX_VALUE if there is none
+     */
+    public int getDistance() {
+        return recorder.getShortestDistance();
+    }
+
+    /**
+     * @return the coordinates of the path from the origin to the destination, empty if there is none
+     */
+    public List<Coordinate> getPath() {
+        return recorder.getPath();
+    }
+
+    /**
+     * @return the cell indices (r * sizeC + c) of the path, without creating any coordinate
+     */
+    public int[] getPathCells() {
+        return recorder.getPathCells();
+    }
+
+    public int getCoordinatesExplored() {
+        return recorder.getNodesVisited().cardinality();
+    }
+
+} // end of class Route
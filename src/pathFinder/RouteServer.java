@@ -0,0 +1,318 @@
+package pathFinder;
+
+import map.MapFormatException;
+import map.ParaTokenizer;
+import map.PathMap;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local routing server, answering route queries over TCP on one map loaded once.
+ * <p>
+ * The protocol is the one of BatchQueries: a client sends query lines, "origin destination [way points]" as row
+ * and column pairs, and gets one answer line per query, the distance followed by the path, "no path", or
+ * "error" and what is wrong with the line. Queries can be pipelined: a client may send any number of lines
+ * without waiting, every query is answered on a thread of its own, and the answers come back in the order of
+ * the queries. Closing its output ends a connection once all its answers are written.
+ * <p>
+ * Every query runs on a new virtual thread when the JVM has them (Java 21 and later), otherwise on a pooled
+ * platform thread. The map is only read, and the finder gives every running query its own search context, so the
+ * number of queries running at once is bounded by a limit, which also bounds the memory of the contexts.
+ * drain() stops accepting connections and queries, and waits for the queries already read to be answered.
+ */
+public class RouteServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 7878;
+    public static final int DEFAULT_MAX_CONCURRENT = 64;
+    // queries of one connection read but not yet written back, the reader waits when there are more
+    private static final int MAX_PIPELINED = 1024;
+    // how long a reader waits for room in its queue before checking whether the connection is closed
+    private static final long PUT_WAIT_MILLIS = 100;
+    // marks the end of the answers of a connection
+    private static final CompletableFuture<String> END = CompletableFuture.completedFuture(null);
+
+    private DijkstraPathFinder finder;
+    private PathMap map;
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+    private Semaphore permits;
+    private Set<Connection> connections;
+    private AtomicLong answered;
+    private volatile boolean isDraining;
+
+    /**
+     * Bind the server, it only accepts connections after start().
+     *
+     * @param finder        the path finder of the map, shared by all the queries
+     * @param map           the map the queries are on, it must not change while the server runs
+     * @param address       the address to listen on, port 0 for any free port
+     * @param maxConcurrent the largest number of queries searched at once
+     */
+    public RouteServer(DijkstraPathFinder finder, PathMap map, InetSocketAddress address, int maxConcurrent)
+            throws IOException {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("At least one query must be allowed to run.");
+        }
+        this.finder = finder;
+        this.map = map;
+        this.permits = new Semaphore(maxConcurrent);
+        this.connections = ConcurrentHashMap.newKeySet();
+        this.answered = new AtomicLong();
+        this.executor = newThreadPerTaskExecutor();
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+    } // end of RouteServer()
+
+    /**
+     * Start accepting connections, on a platform thread of the server which is not a daemon, so the JVM keeps
+     * running until the server is drained (virtual threads are all daemons).
+     */
+    public void start() {
+        Thread acceptor = new Thread(this::acceptConnections, "RouteServer accept");
+        acceptor.setDaemon(false);
+        acceptor.start();
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return the number of queries answered since the server started
+     */
+    public long getAnswered() {
+        return answered.get();
+    }
+
+    /**
+     * Stop accepting connections and reading queries, and wait until every query already read is answered
+     * and written back. Connections still open at the timeout are closed.
+     *
+     * @return true if everything was answered in time
+     */
+    public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+        isDraining = true;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // the server socket is closed anyway
+        }
+        for (Connection connection : connections) {
+            connection.stopReading();
+        }
+
+        boolean isDrained = true;
+        for (Connection connection : connections) {
+            isDrained &= connection.awaitClosed(deadline - System.nanoTime());
+        }
+        executor.shutdown();
+        isDrained &= executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        if (!isDrained) {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+            executor.shutdownNow();
+        }
+        return isDrained;
+    } // end of drain()
+
+    /**
+     * Close the server at once, without waiting for the queries running.
+     */
+    @Override
+    public void close() {
+        try {
+            drain(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptConnections() {
+        while (!isDraining) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                // the server socket has been closed by drain()
+                return;
+            }
+            Connection connection = new Connection(socket);
+            connections.add(connection);
+            try {
+                executor.execute(connection::readQueries);
+                executor.execute(connection::writeAnswers);
+            } catch (RejectedExecutionException e) {
+                // drain() has started meanwhile
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * @return the answer line of the query, or the error it ended with
+     */
+    private String answer(BatchQueries.Query query) {
+        StringBuilder line = new StringBuilder();
+        try {
+            BatchQueries.appendAnswer(line, query.answer(finder), map.sizeC);
+            answered.incrementAndGet();
+        } catch (RuntimeException e) {
+            line.setLength(0);
+            line.append("error ").append(e).append('\n');
+        }
+        return line.toString();
+    }
+
+    /**
+     * Java 21 has a virtual thread per task executor, earlier JVMs get a pool which starts a platform thread
+     * whenever all of its threads are busy, so tasks never wait for one another either way.
+     */
+    static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * One client connection. Its reader parses the query lines and starts a task per query, and its writer
+     * writes the answers back in the order of the queries, flushing whenever no answer is ready.
+     */
+    private class Connection {
+
+        private Socket socket;
+        // answers of the queries read, in the order of the queries, ending with END
+        private BlockingQueue<CompletableFuture<String>> answers;
+        private CountDownLatch closed;
+        private volatile boolean isClosed;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+            this.answers = new LinkedBlockingQueue<>(MAX_PIPELINED);
+            this.closed = new CountDownLatch(1);
+        } // end of Connection()
+
+        private void readQueries() {
+            String name = "client " + socket.getRemoteSocketAddress();
+            try {
+                // the tokenizer is not closed, as that would close the socket before the answers are written
+                ParaTokenizer in = new ParaTokenizer(Channels.newChannel(socket.getInputStream()), name);
+                while (!isDraining) {
+                    int num;
+                    try {
+                        num = in.nextLine();
+                    } catch (MapFormatException e) {
+                        // the line is not only integers, the rest of it is skipped and reading goes on
+                        in.skipLine();
+                        putAnswer(CompletableFuture.completedFuture("error " + e.getMessage() + "\n"));
+                        continue;
+                    }
+                    if (num < 0) break;
+                    if (num == 0) continue;
+
+                    BatchQueries.Query query;
+                    try {
+                        query = BatchQueries.readQuery(in, num, map);
+                    } catch (MapFormatException e) {
+                        putAnswer(CompletableFuture.completedFuture("error " + e.getMessage() + "\n"));
+                        continue;
+                    }
+                    permits.acquire();
+                    try {
+                        putAnswer(CompletableFuture.supplyAsync(() -> answer(query), executor)
+                                .whenComplete((line, e) -> permits.release()));
+                    } catch (RejectedExecutionException e) {
+                        permits.release();
+                        break;
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // the connection has been closed, whatever was read is still answered
+            }
+            endAnswers();
+        }
+
+        private void endAnswers() {
+            try {
+                putAnswer(END);
+            } catch (InterruptedException e) {
+                close();
+            }
+        }
+
+        /**
+         * Queue an answer, waiting while the queue is full. The writer stops taking answers when the client is
+         * gone, so the wait ends when the connection is closed, rather than holding the reader forever.
+         */
+        private void putAnswer(CompletableFuture<String> answer) throws InterruptedException {
+            while (!answers.offer(answer, PUT_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (isClosed) {
+                    throw new InterruptedException("connection closed");
+                }
+            }
+        }
+
+        private void writeAnswers() {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), 1 << 16)) {
+                while (true) {
+                    CompletableFuture<String> answer = answers.poll();
+                    if (answer == null) {
+                        // nothing more is ready to go, so the client gets what has been written so far
+                        out.flush();
+                        answer = answers.take();
+                    }
+                    if (answer == END) break;
+                    out.write(answer.join());
+                }
+            } catch (IOException | InterruptedException e) {
+                // the client is gone, or the server is closing
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Read no more queries, the ones already read are still answered.
+         */
+        void stopReading() {
+            try {
+                socket.shutdownInput();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        boolean awaitClosed(long timeoutNanos) throws InterruptedException {
+            return closed.await(Math.max(0, timeoutNanos), TimeUnit.NANOSECONDS);
+        }
+
+        void close() {
+            isClosed = true;
+            // the answers not yet written are dropped, they only finish their searches
+            answers.clear();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing more can be done with the socket
+            }
+            connections.remove(this);
+            closed.countDown();
+        }
+
+    } // end of class Connection
+
+} // end of class RouteServer
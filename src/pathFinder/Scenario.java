@@ -0,0 +1,102 @@
+package pathFinder;
+
+import map.Coordinate;
+import map.PathMap;
+
+import java.util.*;
+
+/**
+ * A benchmark query with a known answer: an origin, a destination and the cost of the shortest path between them.
+ */
+public class Scenario {
+
+    // tries to draw a passable origin from which another cell can be reached, before giving up
+    private static final int MAX_ORIGIN_DRAWS = 10000;
+
+    private Coordinate origin;
+    private Coordinate destination;
+    private int cost;
+
+    Scenario(Coordinate origin, Coordinate destination, int cost) {
+        this.origin = origin;
+        this.destination = destination;
+        this.cost = cost;
+    } // end of Scenario()
+
+    public Coordinate getOrigin() {
+        return origin;
+    }
+
+    public Coordinate getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return the cost of the shortest path from the origin to the destination
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Draw scenarios at random. Every origin is searched once by Dijkstra over the whole of its reachable area,
+     * and its destinations are drawn uniformly among the cells it reached, so every scenario has a path
+     * and the costs are exact. The same map and seed always give the same scenarios.
+     *
+     * @param map       the map to draw the scenarios on
+     * @param originNum the number of origins
+     * @param perOrigin the number of destinations of each origin
+     * @param seed      the seed of the draws
+     * @return the scenarios, grouped by origin, fewer if the map has too few connected cells
+     */
+    public static List<Scenario> sample(PathMap map, int originNum, int perOrigin, long seed) {
+        List<Scenario> scenarios = new ArrayList<>(originNum * perOrigin);
+        if (originNum == 0 || perOrigin == 0) {
+            return scenarios;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        GridSearch search = new GridSearch(map);
+        int cellNum = map.getCellNum();
+        int draws = 0;
+
+        for (int k = 0; k < originNum; k++) {
+            int origin;
+            int reachedNum;
+            do {
+                if (draws++ == MAX_ORIGIN_DRAWS) {
+                    return scenarios;
+                }
+                origin = random.nextInt(cellNum);
+                reachedNum = 0;
+                if (!map.isImpassable(origin)) {
+                    search.search(origin, GridSearch.NONE);
+                    reachedNum = search.reachedCells().cardinality();
+                }
+            } while (reachedNum < 2);
+
+            // draw the ranks of the destinations among the reached cells, then find them in one walk
+            int[] ranks = new int[perOrigin];
+            for (int i = 0; i < perOrigin; i++) {
+                ranks[i] = random.nextInt(reachedNum);
+            }
+            Arrays.sort(ranks);
+            BitSet reached = search.reachedCells();
+            int cell = reached.nextSetBit(0);
+            int rank = 0;
+            for (int i = 0; i < perOrigin; i++) {
+                for (; rank < ranks[i]; rank++) {
+                    cell = reached.nextSetBit(cell + 1);
+                }
+                // the origin itself is swapped for the next reached cell, or the first one at the end
+                int destination = cell;
+                if (destination == origin) {
+                    destination = reached.nextSetBit(origin + 1);
+                    if (destination < 0) destination = reached.nextSetBit(0);
+                }
+                scenarios.add(new Scenario(map.coordinate(origin), map.coordinate(destination), search.getDistance(destination)));
+            }
+        }
+        return scenarios;
+    } // end of sample()
+
+} // end of class Scenario
@@ -0,0 +1,105 @@
+package pathFinder;
+
+import map.PathMap;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Supplier;
+
+/**
+ * The mutable state of one query: the search core and the buffers a path finder searches with.
+ * <p>
+ * A path finder itself only holds what is fixed for its map, and every query borrows a context from the
+ * pool of the finder for as long as it runs, so any number of threads can query the same finder at once.
+ * Contexts are given back to the pool after the query, so their buffers are allocated once and then reused.
+ * Thanks to the generation stamps of GridSearch its distance and parent arrays are never cleared, only its
+ * bit sets of reached and settled cells are, and the reached cells are copied into the result of the query:
+ * one long per 64 cells up to the last cell reached, which is still O(V / 64) on a search which spreads.
+ * A context is only ever used by one thread at a time.
+ */
+class SearchContext {
+
+    private PathMap map;
+    private QueueType queueType;
+    private GridSearch search;
+    // the search core of a subclass of DijkstraPathFinder, if it has its own
+    private Object finderCore;
+
+    SearchContext(PathMap map, QueueType queueType) {
+        this.map = map;
+        this.queueType = queueType;
+    } // end of SearchContext()
+
+    /**
+     * @return the Dijkstra search core of the context, allocated on its first search
+     */
+    GridSearch getSearch() {
+        if (this.search == null) {
+            this.search = new GridSearch(map, queueType);
+        }
+        return search;
+    }
+
+    /**
+     * A finder always asks its contexts for the same type of core.
+     *
+     * @param factory creates the core on the first call
+     * @return the finder's own search core of the context
+     */
+    @SuppressWarnings("unchecked")
+    <T> T getFinderCore(Supplier<T> factory) {
+        if (this.finderCore == null) {
+            this.finderCore = factory.get();
+        }
+        return (T) finderCore;
+    }
+
+    /**
+     * The contexts of one path finder which are not being used by a query.
+     * <p>
+     * There are never more contexts than queries ever running at once. The worker threads of a ForkJoinPool
+     * keep one context each instead, since their searches are spread over the pool by the caller's query.
+     */
+    static class Pool {
+
+        private PathMap map;
+        private QueueType queueType;
+        private ConcurrentLinkedDeque<SearchContext> idle;
+        private ThreadLocal<SearchContext> workerContexts;
+
+        Pool(PathMap map, QueueType queueType) {
+            this.map = map;
+            this.queueType = queueType;
+            this.idle = new ConcurrentLinkedDeque<>();
+            this.workerContexts = ThreadLocal.withInitial(() -> new SearchContext(map, queueType));
+        } // end of Pool()
+
+        /**
+         * @return an idle context, or a new one if every context is in use
+         */
+        SearchContext acquire() {
+            SearchContext context = idle.pollFirst();
+            return context == null ? new SearchContext(map, queueType) : context;
+        }
+
+        /**
+         * Give a context back once the query is over. The most recently used one is handed out first,
+         * as its buffers are the most likely to still be in the cache.
+         */
+        void release(SearchContext context) {
+            idle.offerFirst(context);
+        }
+
+        /**
+         * @return the search core of the current worker thread of a ForkJoinPool
+         */
+        GridSearch workerSearch() {
+            return workerContexts.get().getSearch();
+        }
+
+        QueueType getQueueType() {
+            return queueType;
+        }
+
+    } // end of class Pool
+
+} // end of class SearchContext